@@ -0,0 +1,68 @@
+package org.lumatrace.benchmarks;
+
+import org.lumatrace.cloud.lumatrace.LumaTraceCanonicalizer;
+import org.lumatrace.cloud.lumatrace.LumaTraceManifest;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Manifest canonicalization and hashing as executed by /register.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CanonicalizerBenchmark {
+
+    private LumaTraceManifest manifest;
+    private String canonicalJson;
+
+    @Setup
+    public void setup() {
+        manifest = new LumaTraceManifest(
+                "lumatrace/1.0",
+                new UUID(0x5EEDL, 42L),
+                "bench-user",
+                "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08",
+                "Pixel 8 Pro",
+                LocalDateTime.of(2026, 1, 15, 10, 30, 45, 123_456_000),
+                40.4168,
+                -3.7038
+        );
+        canonicalJson = LumaTraceCanonicalizer.toCanonicalJson(manifest);
+    }
+
+    @Benchmark
+    public String toCanonicalJson() {
+        return LumaTraceCanonicalizer.toCanonicalJson(manifest);
+    }
+
+    @Benchmark
+    public String sha256() {
+        return LumaTraceCanonicalizer.sha256(canonicalJson);
+    }
+
+    @Benchmark
+    public String canonicalizeAndHash() {
+        return LumaTraceCanonicalizer.sha256(LumaTraceCanonicalizer.toCanonicalJson(manifest));
+    }
+
+    // Ruta de /register: una serialización, JSON + hash
+    @Benchmark
+    public LumaTraceCanonicalizer.CanonicalManifest canonicalize() {
+        return LumaTraceCanonicalizer.canonicalize(manifest);
+    }
+
+    @Benchmark
+    public String sha256Streamed() {
+        return LumaTraceCanonicalizer.sha256(manifest);
+    }
+}
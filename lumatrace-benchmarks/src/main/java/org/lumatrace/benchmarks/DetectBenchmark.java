@@ -0,0 +1,81 @@
+package org.lumatrace.benchmarks;
+
+import org.lumatrace.core.DetectionReport;
+import org.lumatrace.core.ProgressiveSampling;
+import org.lumatrace.core.ScaleSearch;
+import org.lumatrace.core.SignatureCache;
+import org.lumatrace.core.WatermarkDetector;
+import org.lumatrace.core.WatermarkEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Detection latency by image size. Marked images exit after the native scale; unmarked
+ * images run every scale probe, which is the worst case for /verify.
+ * scaleSearch=adaptive replaces the fixed probes with the coarse-to-fine ScaleSearch.
+ * progressive=true folds sampled bands first and stops once the verdict is settled.
+ * parallelism > 1 splits each detection across a dedicated ForkJoinPool (intra-request latency).
+ * Concurrent verification is measured with JMH threads (-t N) on the shared detector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class DetectBenchmark {
+
+    private static final long MASTER_KEY = 123456789L;
+
+    @Param({"1", "12", "50"})
+    public int megapixels;
+
+    @Param({"true", "false"})
+    public boolean marked;
+
+    @Param({"fixed", "adaptive"})
+    public String scaleSearch;
+
+    @Param({"false", "true"})
+    public boolean progressive;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private int width;
+    private int height;
+    private int[] pixels;
+    private WatermarkDetector detector;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[] dims = SyntheticImages.dimensions(megapixels);
+        width = dims[0];
+        height = dims[1];
+        pixels = SyntheticImages.generate(width, height, 7L);
+        if (marked) {
+            pixels = new WatermarkEngine().embedWatermark(pixels, width, height, MASTER_KEY, "bench-user", "bench-content");
+        }
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        detector = new WatermarkDetector(new SignatureCache(SignatureCache.DEFAULT_CAPACITY),
+                scaleSearch.equals("adaptive") ? ScaleSearch.DEFAULT : null,
+                progressive ? ProgressiveSampling.DEFAULT : null,
+                pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public DetectionReport detect() {
+        return detector.detect(pixels, width, height, MASTER_KEY, "bench-user", "bench-content");
+    }
+}
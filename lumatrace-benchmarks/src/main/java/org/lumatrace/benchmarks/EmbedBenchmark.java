@@ -0,0 +1,56 @@
+package org.lumatrace.benchmarks;
+
+import org.lumatrace.core.SignatureCache;
+import org.lumatrace.core.WatermarkEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Full-frame embedding latency by image size and row-band parallelism.
+ * threads = 1 runs the serial path; larger values use a dedicated ForkJoinPool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class EmbedBenchmark {
+
+    @Param({"1", "12", "50"})
+    public int megapixels;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private int width;
+    private int height;
+    private int[] pixels;
+    private ForkJoinPool pool;
+    private WatermarkEngine engine;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[] dims = SyntheticImages.dimensions(megapixels);
+        width = dims[0];
+        height = dims[1];
+        pixels = SyntheticImages.generate(width, height, 42L);
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        engine = new WatermarkEngine(new SignatureCache(SignatureCache.DEFAULT_CAPACITY), pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public int[] embed() {
+        return engine.embedWatermark(pixels, width, height, 123456789L, "bench-user", "bench-content");
+    }
+}
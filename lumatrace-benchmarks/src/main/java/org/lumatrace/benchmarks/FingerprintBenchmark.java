@@ -0,0 +1,79 @@
+package org.lumatrace.benchmarks;
+
+import org.lumatrace.core.GainMap;
+import org.lumatrace.core.IntArrayPixels;
+import org.lumatrace.core.PixelSink;
+import org.lumatrace.core.Recipient;
+import org.lumatrace.core.SignatureCache;
+import org.lumatrace.core.WatermarkEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * One image, many recipients: N streaming embeds versus one gain map plus N variants.
+ * Sinks only checksum the first pixel of each band, so the cost measured is the embedding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class FingerprintBenchmark {
+
+    private static final long MASTER_KEY = 123456789L;
+
+    @Param({"1", "12"})
+    public int megapixels;
+
+    @Param({"10", "100"})
+    public int recipients;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private IntArrayPixels source;
+    private ForkJoinPool pool;
+    private WatermarkEngine engine;
+    private int checksum;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[] dims = SyntheticImages.dimensions(megapixels);
+        source = new IntArrayPixels(SyntheticImages.generate(dims[0], dims[1], 42L), dims[0], dims[1]);
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        engine = new WatermarkEngine(new SignatureCache(SignatureCache.DEFAULT_CAPACITY), pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public int singleEmbeds() {
+        PixelSink sink = (y, rows, src, offset) -> checksum ^= src[offset];
+        for (int i = 0; i < recipients; i++) {
+            engine.embedWatermark(source, sink, MASTER_KEY, "outlet-" + i, "bench-content");
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public int sharedGainMap() {
+        GainMap gains = engine.gainMap(source);
+        List<Recipient> variants = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            variants.add(new Recipient("outlet-" + i, "bench-content", (y, rows, src, offset) -> checksum ^= src[offset]));
+        }
+        engine.embedWatermarks(source, gains, MASTER_KEY, variants);
+        return checksum;
+    }
+}
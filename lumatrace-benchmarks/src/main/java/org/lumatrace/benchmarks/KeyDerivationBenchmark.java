@@ -0,0 +1,55 @@
+package org.lumatrace.benchmarks;
+
+import org.lumatrace.core.KeyDerivation;
+import org.lumatrace.core.WatermarkEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Per-registration costs paid before any pixel is touched: seed derivation and
+ * uncached 64x64 signature generation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyDerivationBenchmark {
+
+    private final WatermarkEngine engine = new WatermarkEngine();
+    private final String userId = "bench-user";
+    private final String contentId = new UUID(0x5EEDL, 42L).toString();
+    private final String[] contentIds = new String[1000];
+    private final long[] seeds = new long[contentIds.length];
+    private long seed;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < contentIds.length; i++) contentIds[i] = new UUID(0x5EEDL, i).toString();
+    }
+
+    @Benchmark
+    public long deriveSeed() {
+        return KeyDerivation.deriveSeed(123456789L, userId, contentId);
+    }
+
+    // 1000 candidatos del mismo usuario (identificación): comparar con 1000 x deriveSeed
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public long[] deriveSeedsBulk() {
+        KeyDerivation.deriveSeeds(123456789L, userId, contentIds, seeds);
+        return seeds;
+    }
+
+    @Benchmark
+    public double[][] generateSignature() {
+        // Distinct seed per call so nothing can be hoisted
+        return engine.generateSignature(seed++);
+    }
+}
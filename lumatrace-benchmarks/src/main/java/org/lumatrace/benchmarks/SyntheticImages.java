@@ -0,0 +1,44 @@
+package org.lumatrace.benchmarks;
+
+import java.util.SplittableRandom;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Reproducible synthetic photographs for benchmarking.
+ * Smooth gradients plus seeded sensor-like noise, so the adaptive gain sees both flat
+ * and textured regions instead of pure white noise.
+ */
+final class SyntheticImages {
+
+    private SyntheticImages() {}
+
+    /**
+     * Dimensions with a 4:3 aspect ratio covering roughly {@code megapixels} million pixels.
+     */
+    static int[] dimensions(int megapixels) {
+        int width = (int) Math.round(Math.sqrt(megapixels * 1_000_000 * 4.0 / 3.0));
+        int height = (int) Math.round(width * 3.0 / 4.0);
+        return new int[]{width, height};
+    }
+
+    static int[] generate(int width, int height, long seed) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = rand.nextInt(-12, 13);
+                int r = clamp(40 + (180 * x) / width + noise);
+                int g = clamp(60 + (150 * y) / height + noise);
+                int b = clamp(200 - (120 * (x + y)) / (width + height) + noise);
+                pixels[y * width + x] = (0xFF << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+        return pixels;
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+}
@@ -0,0 +1,118 @@
+package org.lumatrace.awt;
+
+import org.lumatrace.core.ByteArrayPixels;
+import org.lumatrace.core.IntArrayPixels;
+import org.lumatrace.core.PixelSink;
+import org.lumatrace.core.PixelSource;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * AWT adapter for the streaming core API.
+ * sRGB rasters backed by DataBufferInt (TYPE_INT_RGB / TYPE_INT_ARGB) or interleaved
+ * DataBufferByte (TYPE_3BYTE_BGR / TYPE_4BYTE_ABGR), sub-images included, are read and
+ * written in place through the core array adapters, bypassing per-pixel ColorModel
+ * conversion. Any other layout falls back to getRGB/setRGB one band at a time.
+ * Either way no full-size int[] copy of the image is ever allocated.
+ */
+public final class BufferedImagePixels implements PixelSource, PixelSink {
+
+    private final BufferedImage image;
+    private final PixelSource directSource;
+    private final PixelSink directSink;
+
+    public BufferedImagePixels(BufferedImage image) {
+        this.image = image;
+        Object direct = direct(image);
+        this.directSource = (PixelSource) direct;
+        this.directSink = (PixelSink) direct;
+    }
+
+    /**
+     * True when rows are transferred straight from the raster's backing array.
+     */
+    public boolean isDirect() {
+        return directSource != null;
+    }
+
+    @Override
+    public int width() { return image.getWidth(); }
+
+    @Override
+    public int height() { return image.getHeight(); }
+
+    @Override
+    public void readRows(int y, int rows, int[] dst, int offset) {
+        if (directSource != null) {
+            directSource.readRows(y, rows, dst, offset);
+            return;
+        }
+        int w = image.getWidth();
+        image.getRGB(0, y, w, rows, dst, offset, w);
+    }
+
+    @Override
+    public void writeRows(int y, int rows, int[] src, int offset) {
+        if (directSink != null) {
+            directSink.writeRows(y, rows, src, offset);
+            return;
+        }
+        int w = image.getWidth();
+        image.setRGB(0, y, w, rows, src, offset, w);
+    }
+
+    private static Object direct(BufferedImage image) {
+        ColorModel cm = image.getColorModel();
+        if (!cm.getColorSpace().isCS_sRGB() || cm.isAlphaPremultiplied()) return null;
+
+        WritableRaster raster = image.getRaster();
+        SampleModel sm = raster.getSampleModel();
+        DataBuffer buffer = raster.getDataBuffer();
+        if (buffer.getNumBanks() != 1) return null;
+
+        // Sub-images share the parent's buffer; the translation locates pixel (0, 0)
+        int x0 = raster.getMinX() - raster.getSampleModelTranslateX();
+        int y0 = raster.getMinY() - raster.getSampleModelTranslateY();
+        int w = image.getWidth();
+        int h = image.getHeight();
+
+        if (buffer instanceof DataBufferInt ints
+                && sm instanceof SinglePixelPackedSampleModel packed
+                && cm instanceof DirectColorModel dcm
+                && dcm.getRedMask() == 0x00FF0000 && dcm.getGreenMask() == 0x0000FF00 && dcm.getBlueMask() == 0x000000FF
+                && (dcm.getAlphaMask() == 0 || dcm.getAlphaMask() == 0xFF000000)) {
+            int offset = ints.getOffset() + packed.getOffset(x0, y0);
+            return new IntArrayPixels(ints.getData(), w, h, offset, packed.getScanlineStride(), !cm.hasAlpha());
+        }
+
+        if (buffer instanceof DataBufferByte bytes
+                && sm instanceof PixelInterleavedSampleModel interleaved
+                && cm instanceof ComponentColorModel
+                && (cm.getNumComponents() == 3 || cm.getNumComponents() == 4)) {
+            for (int c = 0; c < cm.getNumComponents(); c++) {
+                if (cm.getComponentSize(c) != 8) return null;
+            }
+            int[] bands = interleaved.getBandOffsets();
+            int stride = interleaved.getPixelStride();
+            int scanline = interleaved.getScanlineStride();
+            int offset = bytes.getOffset() + y0 * scanline + x0 * stride;
+            // sRGB component order: R, G, B[, A]
+            return new ByteArrayPixels(bytes.getData(), w, h, offset, scanline, stride,
+                    bands[0], bands[1], bands[2], cm.hasAlpha() ? bands[3] : -1);
+        }
+        return null;
+    }
+}
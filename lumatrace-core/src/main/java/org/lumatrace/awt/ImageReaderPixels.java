@@ -0,0 +1,169 @@
+package org.lumatrace.awt;
+
+import org.lumatrace.core.PixelSource;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Decoder-backed PixelSource driven by ImageReader / ImageReadParam.
+ * Decoded rasters are read in place through BufferedImagePixels; no full-size int[] copy is ever built.
+ *
+ * Random-access formats (TIFF, BMP) are decoded in row stripes through source regions,
+ * so only one stripe is resident. Sequential formats (JPEG, PNG, GIF) must scan every row
+ * above a region on each read, which would make striping quadratic; they are decoded once
+ * and served band by band from that single decode.
+ *
+ * Decoding is cancellable: an interrupt on the reading thread aborts the ImageReader at its
+ * next progress callback and readRows fails with a CancellationException, so a request past
+ * its deadline does not keep decoding a large image.
+ */
+public final class ImageReaderPixels implements PixelSource, Closeable {
+
+    private static final int STRIPE_ROWS = 256;
+    private static final Set<String> RANDOM_ACCESS_FORMATS = Set.of("tif", "tiff", "bmp", "wbmp");
+
+    private final ImageInputStream stream;
+    private final ImageReader reader;
+    private final int width;
+    private final int height;
+    private final boolean striped;
+
+    private BufferedImagePixels decoded;
+    private BufferedImagePixels stripe;
+    private int stripeY = -1;
+
+    private ImageReaderPixels(ImageInputStream stream, ImageReader reader, boolean striped) throws IOException {
+        this.stream = stream;
+        this.reader = reader;
+        this.striped = striped;
+        this.width = reader.getWidth(0);
+        this.height = reader.getHeight(0);
+        reader.addIIOReadProgressListener(AbortOnInterrupt.INSTANCE);
+    }
+
+    /**
+     * Opens {@code stream} at full resolution. Returns {@code null} for unsupported formats,
+     * mirroring {@link ImageIO#read}. The stream is closed by {@link #close()}.
+     */
+    public static ImageReaderPixels open(ImageInputStream stream) throws IOException {
+        if (stream == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        if (!readers.hasNext()) {
+            stream.close();
+            return null;
+        }
+        ImageReader reader = readers.next();
+        boolean striped = RANDOM_ACCESS_FORMATS.contains(reader.getFormatName().toLowerCase(Locale.ROOT));
+        try {
+            // Sequential formats are read once, so the stream never needs to seek back
+            reader.setInput(stream, !striped, true);
+            return new ImageReaderPixels(stream, reader, striped);
+        } catch (IOException | RuntimeException e) {
+            reader.dispose();
+            stream.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int width() { return width; }
+
+    @Override
+    public int height() { return height; }
+
+    @Override
+    public boolean isRereadCheap() {
+        return !striped;
+    }
+
+    @Override
+    public void readRows(int y, int rows, int[] dst, int offset) {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Decoding interrupted");
+        try {
+            if (!striped) {
+                decoded().readRows(y, rows, dst, offset);
+                return;
+            }
+            int end = y + rows;
+            while (y < end) {
+                if (stripe == null || y < stripeY || y >= stripeY + stripe.height()) loadStripe(y);
+                int n = Math.min(end, stripeY + stripe.height()) - y;
+                stripe.readRows(y - stripeY, n, dst, offset);
+                offset += n * width;
+                y += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Decoding failed", e);
+        }
+    }
+
+    // Parallel detection reads disjoint bands concurrently: the single decode runs once, under the lock
+    private synchronized BufferedImagePixels decoded() throws IOException {
+        if (decoded == null) decoded = new BufferedImagePixels(decode(null));
+        return decoded;
+    }
+
+    private void loadStripe(int y) throws IOException {
+        int rows = Math.min(STRIPE_ROWS, height - y);
+        stripe = new BufferedImagePixels(decode(new Rectangle(0, y, width, rows)));
+        stripeY = y;
+    }
+
+    private BufferedImage decode(Rectangle region) throws IOException {
+        BufferedImage image = reader.read(0, param(region));
+        // An aborted read returns a partial image
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Decoding interrupted");
+        return image;
+    }
+
+    private ImageReadParam param(Rectangle region) {
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (region != null) param.setSourceRegion(region);
+        return param;
+    }
+
+    @Override
+    public void close() throws IOException {
+        decoded = null;
+        stripe = null;
+        reader.dispose();
+        stream.close();
+    }
+
+    /**
+     * Aborts the read in progress once the decoding thread is interrupted.
+     */
+    private static final class AbortOnInterrupt implements IIOReadProgressListener {
+        static final AbortOnInterrupt INSTANCE = new AbortOnInterrupt();
+
+        @Override
+        public void imageProgress(ImageReader source, float percentageDone) {
+            if (Thread.currentThread().isInterrupted()) source.abort();
+        }
+
+        @Override public void sequenceStarted(ImageReader source, int minIndex) {}
+        @Override public void sequenceComplete(ImageReader source) {}
+        @Override public void imageStarted(ImageReader source, int imageIndex) {}
+        @Override public void imageComplete(ImageReader source) {}
+        @Override public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {}
+        @Override public void thumbnailProgress(ImageReader source, float percentageDone) {}
+        @Override public void thumbnailComplete(ImageReader source) {}
+        @Override public void readAborted(ImageReader source) {}
+    }
+}
@@ -1,5 +1,7 @@
 package org.lumatrace.cli;
 
+import org.lumatrace.awt.BufferedImagePixels;
+import org.lumatrace.awt.ImageReaderPixels;
 import org.lumatrace.core.*;
 import javax.imageio.*;
 import javax.imageio.stream.FileImageOutputStream;
@@ -11,6 +13,7 @@ import java.security.SecureRandom;
 import java.util.Iterator;
 import java.util.Properties;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,20 +71,16 @@ public class LumaTraceCLI {
         BufferedImage src = ImageIO.read(input);
         if (src == null) throw new IllegalArgumentException("Unsupported image format");
 
-        WatermarkEngine engine = new WatermarkEngine();
+        // Single asset: spread row bands across all cores
+        WatermarkEngine engine = new WatermarkEngine(ForkJoinPool.commonPool());
         long start = System.nanoTime();
 
-        // --- ADAPTACIÓN (AWT -> Raw Int) ---
+        // --- STREAMING (AWT -> bandas -> AWT) ---
         int w = src.getWidth();
         int h = src.getHeight();
-        int[] rawPixels = src.getRGB(0, 0, w, h, null, 0, w);
-
-        // Procesar (Pure Math)
-        int[] processedPixels = engine.embedWatermark(rawPixels, w, h, MASTER_KEY, DEFAULT_USER, DEFAULT_CONTENT);
-
-        // Reconstruir (Raw Int -> AWT)
         BufferedImage result = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-        result.setRGB(0, 0, w, h, processedPixels, 0, w);
+        engine.embedWatermark(new BufferedImagePixels(src), new BufferedImagePixels(result),
+                MASTER_KEY, DEFAULT_USER, DEFAULT_CONTENT);
         // ------------------------------------
 
         long durationMs = (System.nanoTime() - start) / 1_000_000;
@@ -94,21 +93,15 @@ public class LumaTraceCLI {
         validateArgs(args, 2, "detect <input>");
 
         File input = validateFile(args[1], true);
-        BufferedImage img = null;
-        try {
-            img = ImageIO.read(input);
-            if (img == null) throw new IllegalArgumentException("IO_ERROR: Decoding failed");
+        try (ImageReaderPixels source = ImageReaderPixels.open(ImageIO.createImageInputStream(input))) {
+            if (source == null) throw new IllegalArgumentException("IO_ERROR: Decoding failed");
 
             WatermarkDetector detector = new WatermarkDetector();
             long start = System.nanoTime();
 
-            // --- ADAPTACIÓN (AWT -> Raw Int) ---
-            int w = img.getWidth();
-            int h = img.getHeight();
-            int[] rawPixels = img.getRGB(0, 0, w, h, null, 0, w);
-
-            // Llamada al detector puro (Devuelve DetectionReport)
-            DetectionReport report = detector.detect(rawPixels, w, h, MASTER_KEY, DEFAULT_USER, DEFAULT_CONTENT);
+            // --- STREAMING (ImageReader -> bandas -> detector) ---
+            // La decodificación ocurre dentro de detect(): la latencia la incluye
+            DetectionReport report = detector.detect(source, MASTER_KEY, DEFAULT_USER, DEFAULT_CONTENT);
             // -----------------------------------
 
             long durationMs = (System.nanoTime() - start) / 1_000_000;
@@ -116,10 +109,7 @@ public class LumaTraceCLI {
             printDetectionReport(report, input, durationMs);
 
             // Usamos Sigma > 4.0 como criterio de éxito
-            return (report.confidenceSigma() > 4.0) ? 0 : 4;
-
-        } finally {
-            if (img != null) img.flush();
+            return (report.confidenceSigma() > AnalysisVerdict.VERIFIED_SIGMA) ? 0 : 4;
         }
     }
 
@@ -144,11 +134,9 @@ public class LumaTraceCLI {
                             int w = src.getWidth();
                             int h = src.getHeight();
 
-                            int[] raw = src.getRGB(0, 0, w, h, null, 0, w);
-                            int[] outPixels = engine.embedWatermark(raw, w, h, MASTER_KEY, DEFAULT_USER, DEFAULT_CONTENT);
-
                             BufferedImage res = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-                            res.setRGB(0, 0, w, h, outPixels, 0, w);
+                            engine.embedWatermark(new BufferedImagePixels(src), new BufferedImagePixels(res),
+                                    MASTER_KEY, DEFAULT_USER, DEFAULT_CONTENT);
 
                             saveJpeg(res, new File(outDir, "PROT_" + file.getName()), JPEG_QUALITY);
                             System.out.println("UNIT_COMPLETE: " + file.getName());
@@ -220,7 +208,7 @@ public class LumaTraceCLI {
 
     // CORREGIDO: Usamos DetectionReport
     private static void printDetectionReport(DetectionReport report, File in, long ms) {
-        boolean detected = report.confidenceSigma() > 4.0;
+        boolean detected = report.confidenceSigma() > AnalysisVerdict.VERIFIED_SIGMA;
         System.out.println("\n--- FORENSIC_ANALYSIS_REPORT ---");
         System.out.printf("Target:     %s\n", in.getName());
         System.out.printf("Signal:     %s\n", detected ? "VALIDATED" : "NOT_DETECTED");
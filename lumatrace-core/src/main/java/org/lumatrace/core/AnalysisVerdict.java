@@ -14,14 +14,20 @@ public enum AnalysisVerdict {
     /** Signal absent or below the reliable detection floor (Sigma < 3.0) */
     INCONCLUSIVE;
 
+    /** Lower bound (inclusive) of {@link #VERIFIED}. */
+    public static final double VERIFIED_SIGMA = 4.0;
+
+    /** Lower bound (inclusive) of {@link #MARGINAL}. */
+    public static final double MARGINAL_SIGMA = 3.0;
+
     /**
      * Evaluates the statistical significance of a detection result.
      * * @param sigma The computed Z-Score from the cross-correlation engine.
      * @return The corresponding validation state.
      */
     public static AnalysisVerdict evaluate(double sigma) {
-        if (sigma >= 4.0) return VERIFIED;
-        if (sigma >= 3.0) return MARGINAL;
+        if (sigma >= VERIFIED_SIGMA) return VERIFIED;
+        if (sigma >= MARGINAL_SIGMA) return MARGINAL;
         return INCONCLUSIVE;
     }
 }
\ No newline at end of file
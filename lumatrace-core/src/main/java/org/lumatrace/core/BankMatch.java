@@ -0,0 +1,21 @@
+package org.lumatrace.core;
+
+import java.util.UUID;
+
+/**
+ * Result of a blind identification against a {@link SignatureBank}.
+ * Implemented as a Java 21 Record for immutability and high-concurrency safety.
+ */
+public record BankMatch(
+        UUID registrationId,
+        double confidenceSigma,
+        double estimatedScale,
+        AnalysisVerdict status
+) {
+    /**
+     * Canonical constructor for automated status derivation based on statistical significance.
+     */
+    public BankMatch(UUID registrationId, double confidenceSigma, double estimatedScale) {
+        this(registrationId, confidenceSigma, estimatedScale, AnalysisVerdict.evaluate(confidenceSigma));
+    }
+}
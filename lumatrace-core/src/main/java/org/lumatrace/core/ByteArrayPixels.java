@@ -0,0 +1,101 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * PixelSource/PixelSink over interleaved 8-bit channels (RGB, BGR, RGBA, ABGR...).
+ * The array is wrapped, not copied: rows are packed to ARGB on read and unpacked on write,
+ * so 3-byte buffers never need a 4-byte-per-pixel twin.
+ */
+public final class ByteArrayPixels implements PixelSource, PixelSink {
+
+    private final byte[] data;
+    private final int width;
+    private final int height;
+    private final int offset;
+    private final int scanline;
+    private final int pixelStride;
+    private final int red;
+    private final int green;
+    private final int blue;
+    private final int alpha;
+
+    /**
+     * @param offset      Index of the first byte of pixel (0, 0).
+     * @param scanline    Distance between rows, in bytes.
+     * @param pixelStride Distance between pixels, in bytes.
+     * @param red         Byte offset of each channel within a pixel; {@code alpha} is -1 when absent.
+     */
+    public ByteArrayPixels(byte[] data, int width, int height, int offset, int scanline, int pixelStride,
+                           int red, int green, int blue, int alpha) {
+        if (pixelStride < 1 || scanline < width * pixelStride) throw new IllegalArgumentException("Invalid layout");
+        for (int channel : new int[]{red, green, blue}) {
+            if (channel < 0 || channel >= pixelStride) throw new IllegalArgumentException("Channel outside pixel");
+        }
+        if (alpha >= pixelStride) throw new IllegalArgumentException("Channel outside pixel");
+        if (height > 0 && offset + (long) (height - 1) * scanline + (long) width * pixelStride > data.length) {
+            throw new IllegalArgumentException("Pixel buffer too small");
+        }
+        this.data = data;
+        this.width = width;
+        this.height = height;
+        this.offset = offset;
+        this.scanline = scanline;
+        this.pixelStride = pixelStride;
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.alpha = alpha;
+    }
+
+    /** Packed B, G, R bytes (AWT TYPE_3BYTE_BGR, OpenCV Mat). */
+    public static ByteArrayPixels bgr(byte[] data, int width, int height) {
+        return new ByteArrayPixels(data, width, height, 0, width * 3, 3, 2, 1, 0, -1);
+    }
+
+    /** Packed R, G, B bytes. */
+    public static ByteArrayPixels rgb(byte[] data, int width, int height) {
+        return new ByteArrayPixels(data, width, height, 0, width * 3, 3, 0, 1, 2, -1);
+    }
+
+    /** Packed R, G, B, A bytes (Android Bitmap ARGB_8888 buffers, canvas ImageData). */
+    public static ByteArrayPixels rgba(byte[] data, int width, int height) {
+        return new ByteArrayPixels(data, width, height, 0, width * 4, 4, 0, 1, 2, 3);
+    }
+
+    public byte[] data() { return data; }
+
+    @Override
+    public int width() { return width; }
+
+    @Override
+    public int height() { return height; }
+
+    @Override
+    public void readRows(int y, int rows, int[] dst, int offset) {
+        for (int r = 0; r < rows; r++) {
+            int p = this.offset + (y + r) * scanline;
+            int out = offset + r * width;
+            for (int x = 0; x < width; x++, p += pixelStride) {
+                int a = alpha < 0 ? 0xFF : data[p + alpha] & 0xFF;
+                dst[out + x] = (a << 24) | ((data[p + red] & 0xFF) << 16) | ((data[p + green] & 0xFF) << 8) | (data[p + blue] & 0xFF);
+            }
+        }
+    }
+
+    @Override
+    public void writeRows(int y, int rows, int[] src, int offset) {
+        for (int r = 0; r < rows; r++) {
+            int p = this.offset + (y + r) * scanline;
+            int in = offset + r * width;
+            for (int x = 0; x < width; x++, p += pixelStride) {
+                int argb = src[in + x];
+                data[p + red] = (byte) (argb >> 16);
+                data[p + green] = (byte) (argb >> 8);
+                data[p + blue] = (byte) argb;
+                if (alpha >= 0) data[p + alpha] = (byte) (argb >>> 24);
+            }
+        }
+    }
+}
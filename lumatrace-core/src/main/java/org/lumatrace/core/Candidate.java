@@ -0,0 +1,8 @@
+package org.lumatrace.core;
+
+/**
+ * Identity under which a watermark may have been embedded.
+ * The signature seed is derived from the master key, {@code userId} and {@code contentId}.
+ */
+public record Candidate(String userId, String contentId) {
+}
@@ -0,0 +1,19 @@
+package org.lumatrace.core;
+
+/**
+ * Score of a single candidate in an identification run.
+ * Implemented as a Java 21 Record for immutability and high-concurrency safety.
+ */
+public record CandidateMatch(
+        Candidate candidate,
+        double confidenceSigma,
+        double estimatedScale,
+        AnalysisVerdict status
+) {
+    /**
+     * Canonical constructor for automated status derivation based on statistical significance.
+     */
+    public CandidateMatch(Candidate candidate, double confidenceSigma, double estimatedScale) {
+        this(candidate, confidenceSigma, estimatedScale, AnalysisVerdict.evaluate(confidenceSigma));
+    }
+}
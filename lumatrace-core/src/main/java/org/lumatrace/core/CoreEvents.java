@@ -0,0 +1,83 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Profiling hooks for the embed / detect / signature hot paths.
+ * The active implementation is chosen once at class initialization:
+ *   - JfrCoreEvents (jdk.jfr custom events) when the module is present and
+ *     -Dlumatrace.jfr is not "false". Recordable with always-on JFR
+ *     (-XX:StartFlightRecording), next to GC and CPU events of the same recording.
+ *   - A no-op otherwise (Android, minimal runtimes).
+ * begin*() returns null unless the event type is enabled in a running recording, so the
+ * disabled cost is one isEnabled() check per call.
+ */
+interface CoreEvents {
+
+    String JFR_PROPERTY = "lumatrace.jfr";
+
+    /** @return Token for {@link #commitEmbed}, or {@code null} when not recording. */
+    Object beginEmbed();
+
+    void commitEmbed(Object token, int width, int height, boolean streaming);
+
+    /** @return Token for {@link #commitDetect}, or {@code null} when not recording. */
+    Object beginDetect();
+
+    void commitDetect(Object token, int width, int height, DetectionReport report);
+
+    /**
+     * Opened around the evaluation of one candidate scale, on the thread that evaluates it.
+     *
+     * @return Token for {@link #commitScale}, or {@code null} when not recording.
+     */
+    Object beginScale();
+
+    void commitScale(Object token, double scale, double sigma);
+
+    /** @return Token for {@link #commitSignature}, or {@code null} when not recording. */
+    Object beginSignature();
+
+    void commitSignature(Object token);
+
+    static CoreEvents active() {
+        return Holder.ACTIVE;
+    }
+
+    final class Holder {
+        static final CoreEvents ACTIVE = select();
+
+        private Holder() {}
+
+        /**
+         * Loads the JFR events reflectively so that this class still links on runtimes
+         * without the jdk.jfr module.
+         */
+        private static CoreEvents select() {
+            if ("false".equalsIgnoreCase(System.getProperty(JFR_PROPERTY))) return Disabled.INSTANCE;
+            if (ModuleLayer.boot().findModule("jdk.jfr").isEmpty()) return Disabled.INSTANCE;
+            try {
+                return (CoreEvents) Class.forName("org.lumatrace.core.JfrCoreEvents")
+                        .getDeclaredField("INSTANCE").get(null);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return Disabled.INSTANCE;
+            }
+        }
+    }
+
+    final class Disabled implements CoreEvents {
+        static final Disabled INSTANCE = new Disabled();
+
+        private Disabled() {}
+
+        @Override public Object beginEmbed() { return null; }
+        @Override public void commitEmbed(Object token, int width, int height, boolean streaming) {}
+        @Override public Object beginDetect() { return null; }
+        @Override public void commitDetect(Object token, int width, int height, DetectionReport report) {}
+        @Override public Object beginScale() { return null; }
+        @Override public void commitScale(Object token, double scale, double sigma) {}
+        @Override public Object beginSignature() { return null; }
+        @Override public void commitSignature(Object token) {}
+    }
+}
@@ -8,8 +8,13 @@ public record DetectionReport(
         double confidenceSigma,
         double estimatedScale,
         long latencyMs,
-        AnalysisVerdict status
+        AnalysisVerdict status,
+        DetectionTimings timings
 ) {
+    public DetectionReport(double confidenceSigma, double estimatedScale, long latencyMs, AnalysisVerdict status) {
+        this(confidenceSigma, estimatedScale, latencyMs, status, DetectionTimings.NONE);
+    }
+
     /**
      * Canonical constructor for automated status derivation based on statistical significance.
      */
@@ -17,6 +22,13 @@ public record DetectionReport(
         this(confidenceSigma, estimatedScale, latencyMs, AnalysisVerdict.evaluate(confidenceSigma));
     }
 
+    /**
+     * Instrumented report: latency is derived from the stage timings.
+     */
+    public DetectionReport(double confidenceSigma, double estimatedScale, DetectionTimings timings) {
+        this(confidenceSigma, estimatedScale, timings.latencyMs(), AnalysisVerdict.evaluate(confidenceSigma), timings);
+    }
+
     /**
      * Serializes telemetry for industrial logging or console output.
      */
@@ -25,4 +37,4 @@ public record DetectionReport(
         return String.format("[TELEMETRY] Confidence: σ=%.4f | Scale: %.2fx | Status: %s | Latency: %dms",
                 confidenceSigma, estimatedScale, status, latencyMs);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package org.lumatrace.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage wall-clock breakdown of one detection, in nanoseconds.
+ * Resampling and folding are fused into a single pass over the rows, so they are reported
+ * together as {@code foldNanos}; {@code readNanos} is the time spent pulling rows from the
+ * PixelSource (decoding, for decoder-backed sources). {@code coverage} is the fraction of the
+ * image rows read at least once (below 1 after a progressive early decision or a windowed search).
+ */
+public record DetectionTimings(
+        long signatureNanos,
+        long readNanos,
+        long foldNanos,
+        long transformNanos,
+        long correlationNanos,
+        long totalNanos,
+        boolean earlyExit,
+        double coverage,
+        List<ScaleTiming> scales
+) {
+    /** Placeholder for reports built without instrumentation. */
+    public static final DetectionTimings NONE = new DetectionTimings(0, 0, 0, 0, 0, 0, false, 1.0, List.of());
+
+    /**
+     * One evaluated scale, in evaluation order.
+     */
+    public record ScaleTiming(double scale, double sigma, long correlationNanos) {}
+
+    public long latencyMs() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[TIMINGS] Signature: %.2fms | Read: %.2fms | Fold: %.2fms | FFT: %.2fms | Correlation: %.2fms | Total: %.2fms | Scales: %d%s | Coverage: %.1f%%",
+                signatureNanos / 1e6, readNanos / 1e6, foldNanos / 1e6, transformNanos / 1e6, correlationNanos / 1e6,
+                totalNanos / 1e6, scales.size(), earlyExit ? " (early exit)" : "", coverage * 100);
+    }
+
+    /**
+     * Mutable accumulator threaded through one detection; not thread-safe.
+     */
+    static final class Recorder {
+        private final long start = System.nanoTime();
+        long signatureNanos;
+        long readNanos;
+        long foldNanos;
+        long transformNanos;
+        long correlationNanos;
+        boolean earlyExit;
+        int rows;
+        final BitSet rowsRead = new BitSet();
+        private final List<ScaleTiming> scales = new ArrayList<>();
+
+        void scale(double scale, double sigma, long nanos) {
+            correlationNanos += nanos;
+            scales.add(new ScaleTiming(scale, sigma, nanos));
+        }
+
+        DetectionTimings finish() {
+            return new DetectionTimings(signatureNanos, readNanos, foldNanos, transformNanos, correlationNanos,
+                    System.nanoTime() - start, earlyExit, rows == 0 ? 1.0 : rowsRead.cardinality() / (double) rows,
+                    List.copyOf(scales));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Precomputed perceptual gain of one image, for embedding many recipients.
+ * The adaptive gain depends only on the source pixels, so it is computed once
+ * (WatermarkEngine.gainMap) and stored as one byte per pixel: the normalized entropy
+ * min(1, entropy / 65) on 256 levels.
+ *
+ * Tolerance: quantization moves the gain by at most (MAX_GAIN - MIN_GAIN) / 510, about 0.017,
+ * so variants differ from embedWatermark by at most one level on a small fraction of channels.
+ */
+public final class GainMap {
+
+    static final int LEVELS = 255;
+
+    // Gain of each level: MIN_GAIN + level / 255 * (MAX_GAIN - MIN_GAIN)
+    static final double[] GAINS = new double[LEVELS + 1];
+
+    static {
+        for (int q = 0; q <= LEVELS; q++) {
+            GAINS[q] = WatermarkEngine.MIN_GAIN + (q / (double) LEVELS) * (WatermarkEngine.MAX_GAIN - WatermarkEngine.MIN_GAIN);
+        }
+    }
+
+    private final int width;
+    private final int height;
+    final byte[] levels;
+
+    GainMap(int width, int height, byte[] levels) {
+        this.width = width;
+        this.height = height;
+        this.levels = levels;
+    }
+
+    public int width() { return width; }
+    public int height() { return height; }
+
+    /** Footprint of the map: one byte per pixel. */
+    public long sizeBytes() { return levels.length; }
+
+    /**
+     * Adaptive gain applied at pixel {@code (x, y)}.
+     */
+    public double gain(int x, int y) {
+        return GAINS[levels[y * width + x] & 0xFF];
+    }
+}
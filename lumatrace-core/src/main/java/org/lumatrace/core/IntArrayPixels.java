@@ -0,0 +1,78 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * PixelSource/PixelSink over a plain packed ARGB array (row-major).
+ * The array is wrapped, not copied; offset and scanline stride allow views into
+ * larger buffers (e.g. AWT sub-images).
+ */
+public final class IntArrayPixels implements PixelSource, PixelSink {
+
+    private static final int OPAQUE = 0xFF000000;
+
+    private final int[] data;
+    private final int width;
+    private final int height;
+    private final int offset;
+    private final int scanline;
+    private final boolean opaque;
+
+    public IntArrayPixels(int[] data, int width, int height) {
+        this(data, width, height, 0, width, false);
+    }
+
+    /**
+     * @param offset   Index of pixel (0, 0).
+     * @param scanline Distance between rows, in pixels.
+     * @param opaque   Buffer has no alpha channel (xRGB): reads report alpha 0xFF.
+     */
+    public IntArrayPixels(int[] data, int width, int height, int offset, int scanline, boolean opaque) {
+        if (scanline < width) throw new IllegalArgumentException("Scanline shorter than width");
+        if (height > 0 && offset + (long) (height - 1) * scanline + width > data.length) {
+            throw new IllegalArgumentException("Pixel buffer too small");
+        }
+        this.data = data;
+        this.width = width;
+        this.height = height;
+        this.offset = offset;
+        this.scanline = scanline;
+        this.opaque = opaque;
+    }
+
+    public int[] data() { return data; }
+
+    @Override
+    public int width() { return width; }
+
+    @Override
+    public int height() { return height; }
+
+    @Override
+    public void readRows(int y, int rows, int[] dst, int offset) {
+        if (scanline == width && !opaque) {
+            System.arraycopy(data, this.offset + y * width, dst, offset, rows * width);
+            return;
+        }
+        for (int r = 0; r < rows; r++) {
+            int src = this.offset + (y + r) * scanline;
+            int out = offset + r * width;
+            System.arraycopy(data, src, dst, out, width);
+            if (opaque) {
+                for (int x = 0; x < width; x++) dst[out + x] |= OPAQUE;
+            }
+        }
+    }
+
+    @Override
+    public void writeRows(int y, int rows, int[] src, int offset) {
+        if (scanline == width) {
+            System.arraycopy(src, offset, data, this.offset + y * width, rows * width);
+            return;
+        }
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(src, offset + r * width, data, this.offset + (y + r) * scanline, width);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.lumatrace.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * JFR implementation of CoreEvents. Loaded reflectively by CoreEvents.Holder.
+ * Allocation is sampled from the calling thread only (HotSpot thread allocation counters):
+ * work forked to a ForkJoinPool by parallel embedding or detection is not included.
+ * Seeds and identifiers are never recorded: they are derived from the master key.
+ */
+final class JfrCoreEvents implements CoreEvents {
+
+    static final JfrCoreEvents INSTANCE = new JfrCoreEvents();
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private JfrCoreEvents() {}
+
+    @Name("org.lumatrace.Embed")
+    @Label("Watermark Embed")
+    @Category({"LumaTrace", "Core"})
+    @StackTrace(false)
+    static final class EmbedEvent extends Event {
+        @Label("Width") int width;
+        @Label("Height") int height;
+        @Label("Streaming") boolean streaming;
+        @Label("Allocated") @DataAmount long allocatedBytes;
+        transient long allocationStart;
+    }
+
+    @Name("org.lumatrace.Detect")
+    @Label("Watermark Detect")
+    @Category({"LumaTrace", "Core"})
+    @StackTrace(false)
+    static final class DetectEvent extends Event {
+        @Label("Width") int width;
+        @Label("Height") int height;
+        @Label("Sigma") double sigma;
+        @Label("Estimated Scale") double scale;
+        @Label("Status") String status;
+        @Label("Scales Evaluated") int scalesEvaluated;
+        @Label("Early Exit") boolean earlyExit;
+        @Label("Coverage") @Description("Fraction of image rows read") @Percentage double coverage;
+        @Label("Signature") @Timespan long signatureNanos;
+        @Label("Read") @Description("Time inside PixelSource.readRows (decoding, for decoder-backed sources)")
+        @Timespan long readNanos;
+        @Label("Resample And Fold") @Timespan long foldNanos;
+        @Label("Tile FFT") @Timespan long transformNanos;
+        @Label("Correlation") @Timespan long correlationNanos;
+        @Label("Allocated") @DataAmount long allocatedBytes;
+        transient long allocationStart;
+    }
+
+    @Name("org.lumatrace.AnalyzeScale")
+    @Label("Scale Analysis")
+    @Description("One candidate scale evaluated by a detection (phase search against the folded tile); "
+            + "folding is shared by the scales of a pass and reported on the detection")
+    @Category({"LumaTrace", "Core"})
+    @StackTrace(false)
+    static final class ScaleEvent extends Event {
+        @Label("Scale") double scale;
+        @Label("Sigma") double sigma;
+    }
+
+    @Name("org.lumatrace.GenerateSignature")
+    @Label("Signature Generation")
+    @Category({"LumaTrace", "Core"})
+    @StackTrace(false)
+    static final class SignatureEvent extends Event {
+        @Label("Allocated") @DataAmount long allocatedBytes;
+        transient long allocationStart;
+    }
+
+    @Override
+    public Object beginEmbed() {
+        EmbedEvent event = new EmbedEvent();
+        if (!event.isEnabled()) return null;
+        event.allocationStart = allocated();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitEmbed(Object token, int width, int height, boolean streaming) {
+        if (!(token instanceof EmbedEvent event)) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.width = width;
+        event.height = height;
+        event.streaming = streaming;
+        event.allocatedBytes = allocated() - event.allocationStart;
+        event.commit();
+    }
+
+    @Override
+    public Object beginDetect() {
+        DetectEvent event = new DetectEvent();
+        if (!event.isEnabled()) return null;
+        event.allocationStart = allocated();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitDetect(Object token, int width, int height, DetectionReport report) {
+        if (!(token instanceof DetectEvent event)) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        DetectionTimings t = report.timings();
+        event.width = width;
+        event.height = height;
+        event.sigma = report.confidenceSigma();
+        event.scale = report.estimatedScale();
+        event.status = report.status().name();
+        event.scalesEvaluated = t.scales().size();
+        event.earlyExit = t.earlyExit();
+        event.coverage = t.coverage();
+        event.signatureNanos = t.signatureNanos();
+        event.readNanos = t.readNanos();
+        event.foldNanos = t.foldNanos();
+        event.transformNanos = t.transformNanos();
+        event.correlationNanos = t.correlationNanos();
+        event.allocatedBytes = allocated() - event.allocationStart;
+        event.commit();
+    }
+
+    @Override
+    public Object beginScale() {
+        ScaleEvent event = new ScaleEvent();
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitScale(Object token, double scale, double sigma) {
+        if (!(token instanceof ScaleEvent event)) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.scale = scale;
+        event.sigma = sigma;
+        event.commit();
+    }
+
+    @Override
+    public Object beginSignature() {
+        SignatureEvent event = new SignatureEvent();
+        if (!event.isEnabled()) return null;
+        event.allocationStart = allocated();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitSignature(Object token) {
+        if (!(token instanceof SignatureEvent event)) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.allocatedBytes = allocated() - event.allocationStart;
+        event.commit();
+    }
+
+    private static long allocated() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemorySupported()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+                return hotspot;
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            // java.management ausente: sin medida de asignación
+        }
+        return null;
+    }
+}
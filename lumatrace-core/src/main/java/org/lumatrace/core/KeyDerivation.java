@@ -10,31 +10,120 @@ import java.security.NoSuchAlgorithmException;
  *
  * Utility for cryptographically secure seed generation.
  * Ensures consistent seed derivation across Java and Android.
+ * Seed = first 8 bytes (big-endian) of SHA-256("masterKey:userId:contentId" in UTF-8).
+ * Digests are cloned from a prototype per call (per batch for deriveSeeds): callers on
+ * virtual threads would never reuse a per-thread cache.
  */
 public class KeyDerivation {
 
+    private static final MessageDigest PROTOTYPE = newDigest();
+    private static final int SCRATCH_SIZE = 64;
+
     /**
      * Derives a deterministic 64-bit seed from the inputs.
      * Uses SHA-256 hashing to mix the Master Key with context data.
      */
     public static long deriveSeed(long masterKey, String userId, String contentId) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        MessageDigest digest = digest();
+        byte[] scratch = new byte[SCRATCH_SIZE];
+        updatePrefix(digest, masterKey, userId, scratch);
+        update(digest, contentId, scratch);
+        return toSeed(digest.digest());
+    }
+
+    /**
+     * Bulk variant for many content ids of the same user: the shared
+     * {@code masterKey:userId:} prefix is hashed once and its digest state cloned per id.
+     * Each {@code seeds[i]} equals {@code deriveSeed(masterKey, userId, contentIds[i])}.
+     */
+    public static void deriveSeeds(long masterKey, String userId, String[] contentIds, long[] seeds) {
+        if (seeds.length < contentIds.length) throw new IllegalArgumentException("Seed array too small");
+        if (contentIds.length == 0) return;
 
-            // Mix inputs
-            String rawInput = masterKey + ":" + userId + ":" + contentId;
-            byte[] hash = digest.digest(rawInput.getBytes(StandardCharsets.UTF_8));
+        byte[] scratch = new byte[SCRATCH_SIZE];
+        MessageDigest prefix = digest();
+        updatePrefix(prefix, masterKey, userId, scratch);
 
-            // Convert first 8 bytes of hash to long
-            long seed = 0;
-            for (int i = 0; i < 8; i++) {
-                seed = (seed << 8) | (hash[i] & 0xFF);
+        for (int i = 0; i < contentIds.length; i++) {
+            MessageDigest digest = fork(prefix, masterKey, userId, scratch);
+            update(digest, contentIds[i], scratch);
+            seeds[i] = toSeed(digest.digest());
+        }
+    }
+
+    public static long[] deriveSeeds(long masterKey, String userId, String[] contentIds) {
+        long[] seeds = new long[contentIds.length];
+        deriveSeeds(masterKey, userId, contentIds, seeds);
+        return seeds;
+    }
+
+    private static void updatePrefix(MessageDigest digest, long masterKey, String userId, byte[] scratch) {
+        // Long.toString es ASCII: se escribe sin pasar por String
+        int n = 0;
+        String key = Long.toString(masterKey);
+        for (int i = 0; i < key.length(); i++) scratch[n++] = (byte) key.charAt(i);
+        scratch[n++] = ':';
+        digest.update(scratch, 0, n);
+        update(digest, userId, scratch);
+        digest.update((byte) ':');
+    }
+
+    /**
+     * Same bytes as {@code String.valueOf(value).getBytes(UTF_8)}; ASCII is copied without allocating.
+     * ':' is ASCII, so encoding the parts separately equals encoding the concatenation.
+     */
+    private static void update(MessageDigest digest, String value, byte[] scratch) {
+        if (value == null) value = "null";
+        int length = value.length();
+        if (length <= scratch.length) {
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                char c = value.charAt(i);
+                scratch[i] = (byte) c;
+                ascii = c < 0x80;
             }
-            return seed;
+            if (ascii) {
+                digest.update(scratch, 0, length);
+                return;
+            }
+        }
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest fork(MessageDigest prefix, long masterKey, String userId, byte[] scratch) {
+        try {
+            return (MessageDigest) prefix.clone();
+        } catch (CloneNotSupportedException e) {
+            // Proveedores sin clone: se rehace el prefijo
+            MessageDigest digest = newDigest();
+            updatePrefix(digest, masterKey, userId, scratch);
+            return digest;
+        }
+    }
 
+    private static MessageDigest digest() {
+        try {
+            return (MessageDigest) PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            return newDigest();
+        }
+    }
+
+    private static long toSeed(byte[] hash) {
+        // Convert first 8 bytes of hash to long
+        long seed = 0;
+        for (int i = 0; i < 8; i++) {
+            seed = (seed << 8) | (hash[i] & 0xFF);
+        }
+        return seed;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             // Should never happen on standard JVM/Android
             throw new RuntimeException("CRITICAL: SHA-256 algorithm missing", e);
         }
     }
-}
\ No newline at end of file
+}
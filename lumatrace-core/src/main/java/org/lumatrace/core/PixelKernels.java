@@ -0,0 +1,85 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Per-row pixel kernels shared by the engine and the detector.
+ * The active implementation is chosen once at class initialization:
+ *   - VectorKernels (jdk.incubator.vector) when the module is resolved at runtime
+ *     (java --add-modules jdk.incubator.vector) and -Dlumatrace.simd is not "false".
+ *   - ScalarKernels otherwise (Android, plain JVM launches).
+ * Both implementations perform the same IEEE operations in the same order, so their
+ * output is bit-identical.
+ */
+interface PixelKernels {
+
+    String SIMD_PROPERTY = "lumatrace.simd";
+
+    /** Rec. 709 luminance of one ARGB row. */
+    void lumaRow(int[] argb, int offset, int w, double[] out);
+
+    /** Differential chrominance (B - Y) of one ARGB row. */
+    void chromaRow(int[] argb, int offset, int w, double[] out);
+
+    /**
+     * Adaptive-gain injection of one row. {@code sigRow[k]} holds the signature value
+     * for column {@code k} of the row's tile line.
+     */
+    void embedRow(int[] src, int srcOffset, int[] dst, int dstOffset, int w,
+                  double[] luma, double[] lumaBelow, boolean hasBelow, double[] sigRow);
+
+    /**
+     * Quantized adaptive gain of one row (see {@link GainMap}): {@code levels[offset + x]} receives
+     * the same entropy term {@link #embedRow} computes, on {@link GainMap#LEVELS} steps.
+     */
+    void gainRow(double[] luma, double[] lumaBelow, boolean hasBelow, int w, byte[] levels, int offset);
+
+    /**
+     * Injection of one row with a precomputed gain: {@code gains[levels[levelOffset + x] & 0xFF]}
+     * replaces the entropy gain of {@link #embedRow}.
+     */
+    void embedRowWithGain(int[] src, int srcOffset, int[] dst, int dstOffset, int w,
+                          byte[] levels, int levelOffset, double[] gains, double[] sigRow);
+
+    /**
+     * Differential chrominance of one row of the legacy bilinear resize: {@code out[j - from]} for
+     * {@code j} in {@code [from, to)} interpolates source columns {@code colIndex[j]} and {@code colIndex[j] + 1}
+     * of {@code top} and {@code bottom}. Each channel is computed in float and truncated, as the original
+     * resizeBilinear did, before the chrominance is taken.
+     */
+    void resizeChromaRow(int[] top, int[] bottom, int[] colIndex, float[] colDiff, float yDiff, int from, int to, double[] out);
+
+    /** Folds one row into a tile line: {@code sums[rowBase + x % 64] += values[x]}. */
+    void foldRow(double[] values, int w, double[] sums, int rowBase);
+
+    static PixelKernels active() {
+        return Holder.ACTIVE;
+    }
+
+    final class Holder {
+        static final PixelKernels ACTIVE = select();
+
+        private Holder() {}
+
+        private static PixelKernels select() {
+            if ("false".equalsIgnoreCase(System.getProperty(SIMD_PROPERTY))) return ScalarKernels.INSTANCE;
+            PixelKernels vector = vectorOrNull();
+            return vector != null ? vector : ScalarKernels.INSTANCE;
+        }
+
+        /**
+         * Loads the Vector API kernels reflectively so that this class still links on
+         * runtimes without the incubator module.
+         */
+        static PixelKernels vectorOrNull() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+            try {
+                return (PixelKernels) Class.forName("org.lumatrace.core.VectorKernels")
+                        .getDeclaredField("INSTANCE").get(null);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+    }
+}
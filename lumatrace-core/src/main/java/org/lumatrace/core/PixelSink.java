@@ -0,0 +1,17 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Row-oriented pixel consumer for streaming operations.
+ * Receives each processed band exactly once, in top-to-bottom order.
+ */
+public interface PixelSink {
+
+    /**
+     * Accepts rows [y, y + rows) as packed ARGB (0xAARRGGBB) read from {@code src},
+     * starting at {@code offset}, with a row stride equal to the image width.
+     */
+    void writeRows(int y, int rows, int[] src, int offset);
+}
@@ -0,0 +1,34 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Row-oriented pixel provider for streaming operations.
+ * Lets the core consume images band by band without materializing a full int[] plane.
+ * Platform Agnostic: implementations may wrap AWT images, Android Bitmaps or raw buffers.
+ */
+public interface PixelSource {
+
+    int width();
+
+    int height();
+
+    /**
+     * Copies rows [y, y + rows) as packed ARGB (0xAARRGGBB) into {@code dst},
+     * starting at {@code offset}, with a row stride equal to {@link #width()}.
+     * Multi-pass consumers (e.g. the detector) may request the same rows more than once.
+     * Decoder-backed implementations may stop with a {@link java.util.concurrent.CancellationException}
+     * when the reading thread is interrupted.
+     */
+    void readRows(int y, int rows, int[] dst, int offset);
+
+    /**
+     * False when reading the rows again means decoding them again (e.g. streaming decoders).
+     * Multi-pass consumers then trade extra work per pass for a single read.
+     * Cheap sources may also be read concurrently, from disjoint row ranges, by parallel detection.
+     */
+    default boolean isRereadCheap() {
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Progressive detection schedule for WatermarkDetector.
+ * Each scale is folded in stages over a deterministic subset of 64-row bands
+ * (band b belongs to phase b % stride; phases are added in bit-reversed order, so the
+ * folded fraction doubles per stage: 1/8, 1/4, 1/2, 1 for stride 8). After every stage the
+ * interim sigma decides:
+ *   - accept: sigma >= acceptSigma. Sigma is expected to grow with more samples, so the
+ *     full fold is expected to stay VERIFIED. The interim sigma is reported as is: it is a
+ *     lower bound of the full-fold score (often several times lower), not an estimate of it.
+ *   - reject: sigma / sqrt(fraction) < rejectSigma, i.e. projected to the full fold at the
+ *     sqrt(n) rate of a converged correlation it stays below the threshold. A weak signal can
+ *     grow faster than that, so rejectSigma is the knob that trades misses for speed.
+ * Only applies to sources that are cheap to re-read; other sources are folded in one pass.
+ */
+public record ProgressiveSampling(int stride, double acceptSigma, double rejectSigma) {
+
+    /** Eighths of the image; accepts at twice the VERIFIED threshold, rejects below MARGINAL. */
+    public static final ProgressiveSampling DEFAULT =
+            new ProgressiveSampling(8, 2 * AnalysisVerdict.VERIFIED_SIGMA, AnalysisVerdict.MARGINAL_SIGMA);
+
+    public ProgressiveSampling {
+        if (stride < 1 || Integer.bitCount(stride) != 1) throw new IllegalArgumentException("Stride must be a power of two");
+        if (acceptSigma < AnalysisVerdict.VERIFIED_SIGMA) {
+            throw new IllegalArgumentException("acceptSigma below the VERIFIED threshold would change verdicts");
+        }
+        if (!(rejectSigma <= acceptSigma)) throw new IllegalArgumentException("rejectSigma must not exceed acceptSigma");
+    }
+
+    /**
+     * Band phases added at each stage; stage {@code k > 0} doubles the folded fraction.
+     */
+    boolean[][] stages() {
+        int bits = Integer.numberOfTrailingZeros(stride);
+        int count = bits + 1;
+        boolean[][] stages = new boolean[count][stride];
+        for (int i = 0; i < stride; i++) {
+            int phase = bits == 0 ? 0 : Integer.reverse(i) >>> (Integer.SIZE - bits);
+            // Stage of position i: 0 for i = 0, else floor(log2(i)) + 1
+            int stage = i == 0 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(i);
+            stages[stage][phase] = true;
+        }
+        return stages;
+    }
+
+    boolean accepts(double sigma) {
+        return sigma >= acceptSigma;
+    }
+
+    boolean rejects(double sigma, double fraction) {
+        return fraction < 1 && sigma / Math.sqrt(fraction) < rejectSigma;
+    }
+}
@@ -0,0 +1,8 @@
+package org.lumatrace.core;
+
+/**
+ * One watermarked variant of a shared image: the seed is derived from the master key,
+ * {@code userId} and {@code contentId}, and the variant's rows are streamed to {@code sink}.
+ */
+public record Recipient(String userId, String contentId, PixelSink sink) {
+}
@@ -1,5 +1,7 @@
 package org.lumatrace.core;
 
+import org.lumatrace.awt.BufferedImagePixels;
+
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
@@ -26,7 +28,7 @@ public class RobustnessBenchmark {
 
     private static final String BENCHMARK_SESSION_UID = "internal-audit-v3";
     private static final String TEST_PAYLOAD = "robustness-validation-vector";
-    private static final double SIGMA_CONFIDENCE_THRESHOLD = 4.0;
+    private static final double SIGMA_CONFIDENCE_THRESHOLD = AnalysisVerdict.VERIFIED_SIGMA;
 
     /**
      * Executes a comprehensive robustness audit on a target asset.
@@ -42,17 +44,12 @@ public class RobustnessBenchmark {
             WatermarkEngine engine = new WatermarkEngine();
             System.out.println("[PROC_EMBED] Generating reference watermarked asset...");
 
-            // --- ADAPTACIÓN (BufferedImage -> int[]) ---
+            // --- STREAMING (BufferedImage -> bandas -> BufferedImage) ---
             int w = original.getWidth();
             int h = original.getHeight();
-            int[] rawPixels = original.getRGB(0, 0, w, h, null, 0, w);
-
-            // Inyección (Matemática Pura)
-            int[] markedPixels = engine.embedWatermark(rawPixels, w, h, masterKey, BENCHMARK_SESSION_UID, TEST_PAYLOAD);
-
-            // Reconstrucción (int[] -> BufferedImage)
             BufferedImage watermarked = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-            watermarked.setRGB(0, 0, w, h, markedPixels, 0, w);
+            engine.embedWatermark(new BufferedImagePixels(original), new BufferedImagePixels(watermarked),
+                    masterKey, BENCHMARK_SESSION_UID, TEST_PAYLOAD);
             // -------------------------------------------
 
             System.out.println("\n--- FORENSIC ROBUSTNESS AUDIT REPORT ---");
@@ -127,12 +124,8 @@ public class RobustnessBenchmark {
     }
 
     private void evaluateVector(String vector, String param, BufferedImage img, long key, WatermarkDetector detector) {
-        // --- ADAPTACIÓN (BufferedImage -> int[]) ---
-        int w = img.getWidth();
-        int h = img.getHeight();
-        int[] rawPixels = img.getRGB(0, 0, w, h, null, 0, w);
-
-        DetectionReport report = detector.detect(rawPixels, w, h, key, BENCHMARK_SESSION_UID, TEST_PAYLOAD);
+        // --- ADAPTACIÓN (BufferedImage -> PixelSource, lectura directa del raster) ---
+        DetectionReport report = detector.detect(new BufferedImagePixels(img), key, BENCHMARK_SESSION_UID, TEST_PAYLOAD);
 
         // Obtenemos Sigma del reporte
         double sigma = report.confidenceSigma();
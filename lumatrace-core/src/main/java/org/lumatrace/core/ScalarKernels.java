@@ -0,0 +1,150 @@
+package org.lumatrace.core;
+
+import static org.lumatrace.core.WatermarkEngine.*;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Portable scalar kernels. Reference implementation for VectorKernels and the
+ * fallback on platforms without the Vector API.
+ */
+final class ScalarKernels implements PixelKernels {
+
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    private ScalarKernels() {}
+
+    @Override
+    public void lumaRow(int[] argb, int offset, int w, double[] out) {
+        for (int x = 0; x < w; x++) {
+            int rgb = argb[offset + x];
+            int r = (rgb >> 16) & 0xFF;
+            int g = (rgb >> 8) & 0xFF;
+            int b = rgb & 0xFF;
+            out[x] = r * LUMA_R + g * LUMA_G + b * LUMA_B;
+        }
+    }
+
+    @Override
+    public void chromaRow(int[] argb, int offset, int w, double[] out) {
+        for (int x = 0; x < w; x++) {
+            int rgb = argb[offset + x];
+            int r = (rgb >> 16) & 0xFF;
+            int g = (rgb >> 8) & 0xFF;
+            int b = rgb & 0xFF;
+            double luma = LUMA_R * r + LUMA_G * g + LUMA_B * b;
+            out[x] = (double) b - luma;
+        }
+    }
+
+    @Override
+    public void embedRow(int[] src, int srcOffset, int[] dst, int dstOffset, int w,
+                         double[] luma, double[] lumaBelow, boolean hasBelow, double[] sigRow) {
+        embedRange(src, srcOffset, dst, dstOffset, w, luma, lumaBelow, hasBelow, sigRow, 0);
+    }
+
+    /**
+     * Injects columns [fromX, w); shared with VectorKernels for the loop tail.
+     */
+    void embedRange(int[] src, int srcOffset, int[] dst, int dstOffset, int w,
+                    double[] luma, double[] lumaBelow, boolean hasBelow, double[] sigRow, int fromX) {
+        for (int x = fromX; x < w; x++) {
+            // Calculate Local Entropy (Edge Detection)
+            double entropy = 0;
+            if (x < w - 1 && hasBelow) {
+                double current = luma[x];
+                entropy = Math.abs(current - luma[x + 1]) +       // Horizontal gradient
+                        Math.abs(current - lumaBelow[x]);       // Vertical gradient
+            }
+
+            // Adaptive Gain Calculation
+            double gain = MIN_GAIN + Math.min(1.0, entropy / ENTROPY_NORMALIZATION) * (MAX_GAIN - MIN_GAIN);
+            double signal = sigRow[x % TILE_SIZE] * gain;
+
+            // Original Pixel Extraction
+            int rgb = src[srcOffset + x];
+            int a = (rgb >> 24) & 0xFF;
+            int r = (rgb >> 16) & 0xFF;
+            int g = (rgb >> 8) & 0xFF;
+            int b = rgb & 0xFF;
+
+            // Apply Signal
+            dst[dstOffset + x] = (a << 24) |
+                    (clamp(r + signal * VEC_RED) << 16) |
+                    (clamp(g + signal * VEC_GREEN) << 8) |
+                    clamp(b + signal * VEC_BLUE);
+        }
+    }
+
+    @Override
+    public void gainRow(double[] luma, double[] lumaBelow, boolean hasBelow, int w, byte[] levels, int offset) {
+        for (int x = 0; x < w; x++) {
+            // Same entropy term as embedRange; border pixels get the minimum gain
+            double entropy = 0;
+            if (x < w - 1 && hasBelow) {
+                double current = luma[x];
+                entropy = Math.abs(current - luma[x + 1]) + Math.abs(current - lumaBelow[x]);
+            }
+            levels[offset + x] = (byte) (int) (Math.min(1.0, entropy / ENTROPY_NORMALIZATION) * GainMap.LEVELS + 0.5);
+        }
+    }
+
+    @Override
+    public void embedRowWithGain(int[] src, int srcOffset, int[] dst, int dstOffset, int w,
+                                 byte[] levels, int levelOffset, double[] gains, double[] sigRow) {
+        for (int x = 0; x < w; x++) {
+            double signal = sigRow[x % TILE_SIZE] * gains[levels[levelOffset + x] & 0xFF];
+
+            int rgb = src[srcOffset + x];
+            int a = (rgb >> 24) & 0xFF;
+            int r = (rgb >> 16) & 0xFF;
+            int g = (rgb >> 8) & 0xFF;
+            int b = rgb & 0xFF;
+
+            dst[dstOffset + x] = (a << 24) |
+                    (clamp(r + signal * VEC_RED) << 16) |
+                    (clamp(g + signal * VEC_GREEN) << 8) |
+                    clamp(b + signal * VEC_BLUE);
+        }
+    }
+
+    @Override
+    public void resizeChromaRow(int[] top, int[] bottom, int[] colIndex, float[] colDiff, float yDiff, int from, int to, double[] out) {
+        resizeChromaRange(top, bottom, colIndex, colDiff, yDiff, from, to, out, from);
+    }
+
+    // Shared with VectorKernels for the tail columns
+    void resizeChromaRange(int[] top, int[] bottom, int[] colIndex, float[] colDiff, float yDiff, int from, int to,
+                           double[] out, int start) {
+        for (int j = start; j < to; j++) {
+            int x = colIndex[j];
+            float xDiff = colDiff[j];
+            int a = top[x], b = top[x + 1], c = bottom[x], d = bottom[x + 1];
+            int blue = bilinear(a, b, c, d, 0, xDiff, yDiff);
+            int green = bilinear(a, b, c, d, 8, xDiff, yDiff);
+            int red = bilinear(a, b, c, d, 16, xDiff, yDiff);
+            double luma = LUMA_R * red + LUMA_G * green + LUMA_B * blue;
+            out[j - from] = (double) blue - luma;
+        }
+    }
+
+    private static int bilinear(int a, int b, int c, int d, int shift, float xDiff, float yDiff) {
+        return (int) (((a >> shift) & 0xFF) * (1 - xDiff) * (1 - yDiff) + ((b >> shift) & 0xFF) * xDiff * (1 - yDiff) +
+                ((c >> shift) & 0xFF) * yDiff * (1 - xDiff) + ((d >> shift) & 0xFF) * (xDiff * yDiff));
+    }
+
+    @Override
+    public void foldRow(double[] values, int w, double[] sums, int rowBase) {
+        for (int x = 0; x < w; x++) {
+            sums[rowBase + (x % TILE_SIZE)] += values[x];
+        }
+    }
+
+    static int clamp(double value) {
+        int i = (int) (value + 0.5); // Fast rounding
+        if (i < 0) return 0;
+        if (i > 255) return 255;
+        return i;
+    }
+}
@@ -0,0 +1,442 @@
+package org.lumatrace.core;
+
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Fused Resample-and-Fold Accumulator.
+ * Folds one candidate scale of the differential chrominance plane into a 64x64 tile
+ * without materializing the resized image. Source rows are pushed top to bottom and
+ * every folder emits the target rows whose bilinear footprint starts on that row, so
+ * any number of scales share a single pass over the pixels.
+ *
+ * Interpolated scales reproduce the legacy resize-then-extract pipeline exactly: each target
+ * row is resized with the original float arithmetic and per-channel truncation
+ * (PixelKernels.resizeChromaRow) before the chrominance is taken.
+ * Interpolating the chrominance directly is cheaper but not equivalent; on flat content the
+ * truncation artifacts moved sigma by up to 14% at the 0.5x and 1.25x probes.
+ */
+final class ScaleFolder {
+
+    static final int TILE_SIZE = WatermarkEngine.TILE_SIZE;
+    static final int TILE_AREA = TILE_SIZE * TILE_SIZE;
+
+    private static final int READ_BAND = 64;
+    // Parallel folding: source rows per leaf task (each leaf folds into its own accumulators)
+    private static final int PARALLEL_BAND = 2 * READ_BAND;
+
+    final double scale;
+    final int targetW;
+    final int targetH;
+    // Folded window in target coordinates: [x0, x1) x [y0, y1)
+    final int x0;
+    final int x1;
+    final int y0;
+    final int y1;
+
+    private final boolean identity;
+    private final int sourceW;
+    private final int sourceH;
+    private final float yRatio;
+    private final int[] colIndex;
+    private final float[] colDiff;
+    private int nextTargetRow;
+    // Bands of 64 target rows folded in the current pass: band b when bands[b % bands.length]; null = all
+    private boolean[] bands;
+    private long foldedPixels;
+    // Interpolated scales: chrominance of one resized row, allocated on first use
+    private double[] chroma;
+
+    private final double[] sums = new double[TILE_AREA];
+    private final int[] counts = new int[TILE_AREA];
+
+    ScaleFolder(int sourceW, int sourceH, double scale) {
+        this(sourceW, sourceH, scale, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Folds only a centered window of at most {@code window x window} target pixels.
+     * A smaller window tolerates a larger scale error before the tile phase drifts
+     * (drift is proportional to the folded extent), at the cost of fewer samples per cell.
+     */
+    ScaleFolder(int sourceW, int sourceH, double scale, int window) {
+        this.scale = scale;
+        this.sourceW = sourceW;
+        this.sourceH = sourceH;
+        this.targetW = (int) (sourceW * scale);
+        this.targetH = (int) (sourceH * scale);
+        int ww = Math.min(window, targetW);
+        int wh = Math.min(window, targetH);
+        this.x0 = (targetW - ww) / 2;
+        this.x1 = x0 + ww;
+        this.y0 = (targetH - wh) / 2;
+        this.y1 = y0 + wh;
+        this.nextTargetRow = y0;
+        this.identity = scale == 1.0 && ww == targetW && wh == targetH;
+
+        if (identity) {
+            this.yRatio = 0;
+            this.colIndex = null;
+            this.colDiff = null;
+        } else {
+            // Same sampling grid as the legacy resizeBilinear
+            float xRatio = ((float) (sourceW - 1)) / targetW;
+            this.yRatio = ((float) (sourceH - 1)) / targetH;
+            this.colIndex = new int[targetW];
+            this.colDiff = new float[targetW];
+            for (int j = 0; j < targetW; j++) {
+                int x = Math.min((int) (xRatio * j), sourceW - 2);
+                colIndex[j] = x;
+                colDiff[j] = (xRatio * j) - x;
+            }
+        }
+    }
+
+    /**
+     * Empty accumulator over the same grid, window and pass as {@code parent}, fed from source
+     * row {@code sourceRow} on (for parallel folding of the source rows below it).
+     */
+    private ScaleFolder(ScaleFolder parent, int sourceRow) {
+        this.scale = parent.scale;
+        this.targetW = parent.targetW;
+        this.targetH = parent.targetH;
+        this.x0 = parent.x0;
+        this.x1 = parent.x1;
+        this.y0 = parent.y0;
+        this.y1 = parent.y1;
+        this.identity = parent.identity;
+        this.sourceW = parent.sourceW;
+        this.sourceH = parent.sourceH;
+        this.yRatio = parent.yRatio;
+        this.colIndex = parent.colIndex;
+        this.colDiff = parent.colDiff;
+        this.bands = parent.bands;
+
+        // First pending target row whose bilinear footprint starts at or below sourceRow
+        int lo = parent.nextTargetRow;
+        int hi = y1;
+        if (!identity) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sourceRowOf(mid) < sourceRow) lo = mid + 1;
+                else hi = mid;
+            }
+        }
+        this.nextTargetRow = nextSelectedRow(lo);
+    }
+
+    /**
+     * Adds the sums of an accumulator created with the forking constructor.
+     */
+    private void merge(ScaleFolder part) {
+        for (int i = 0; i < TILE_AREA; i++) {
+            sums[i] += part.sums[i];
+            counts[i] += part.counts[i];
+        }
+        foldedPixels += part.foldedPixels;
+    }
+
+    /**
+     * True when the scaled image still covers at least one full tile.
+     */
+    static boolean fits(int w, int h, double scale) {
+        return (int) (w * scale) >= TILE_SIZE && (int) (h * scale) >= TILE_SIZE;
+    }
+
+    /**
+     * Target pixels folded so far, in tiles (the sample count behind the sigma normalization).
+     */
+    double foldedTiles() {
+        return foldedPixels / (double) TILE_AREA;
+    }
+
+    /**
+     * Fraction of the window's target rows folded so far.
+     */
+    double foldedFraction() {
+        return foldedPixels / ((x1 - x0) * (double) (y1 - y0));
+    }
+
+    /**
+     * Starts a further pass restricted to the bands of 64 target rows whose index modulo
+     * {@code phases.length} is set. Sums accumulate across passes, so a sequence of passes
+     * over disjoint phases ends equal to a single full fold.
+     */
+    void selectBands(boolean[] phases) {
+        this.bands = phases.clone();
+        this.nextTargetRow = nextSelectedRow(y0);
+    }
+
+    /**
+     * True when the current pass has at least one target row to fold.
+     */
+    boolean hasSelectedRows() {
+        return nextSelectedRow(y0) < y1;
+    }
+
+    /**
+     * Source rows the current pass reads (the bilinear row below included).
+     */
+    BitSet sourceRows() {
+        BitSet rows = new BitSet(sourceH);
+        for (int i = nextSelectedRow(y0); i < y1; i = nextSelectedRow(i + 1)) {
+            if (identity) {
+                rows.set(i);
+            } else {
+                int y = sourceRowOf(i);
+                rows.set(y, Math.min(y + 2, sourceH));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Accepts source row {@code y}: its chrominance (identity scale only) and its ARGB pixels.
+     * {@code argbBelow} holds row {@code y + 1} (ignored on the last row, which no bilinear
+     * footprint starts on). Rows outside the current pass are ignored.
+     */
+    void acceptSourceRow(int y, double[] chroma, int[] argb, int[] argbBelow) {
+        if (identity) {
+            if (isSelected(y)) foldRow(y, chroma);
+            return;
+        }
+        while (nextTargetRow < y1 && sourceRowOf(nextTargetRow) == y) {
+            foldInterpolatedRow(nextTargetRow, argb, argbBelow);
+            nextTargetRow = nextSelectedRow(nextTargetRow + 1);
+        }
+    }
+
+    private boolean isSelected(int i) {
+        return bands == null || bands[(i / TILE_SIZE) % bands.length];
+    }
+
+    private int nextSelectedRow(int i) {
+        while (i < y1 && !isSelected(i)) i = (i / TILE_SIZE + 1) * TILE_SIZE;
+        return Math.min(i, y1);
+    }
+
+    private int sourceRowOf(int i) {
+        return Math.min((int) (yRatio * i), sourceH - 2);
+    }
+
+    private void foldRow(int i, double[] chroma) {
+        int rowBase = (i % TILE_SIZE) * TILE_SIZE;
+        PixelKernels.active().foldRow(chroma, targetW, sums, rowBase);
+        int fullTiles = targetW / TILE_SIZE;
+        int remainder = targetW % TILE_SIZE;
+        for (int k = 0; k < TILE_SIZE; k++) {
+            counts[rowBase + k] += fullTiles + (k < remainder ? 1 : 0);
+        }
+        foldedPixels += targetW;
+    }
+
+    private void foldInterpolatedRow(int i, int[] top, int[] bottom) {
+        int y = sourceRowOf(i);
+        float yDiff = (yRatio * i) - y;
+        if (chroma == null) chroma = new double[x1 - x0];
+        PixelKernels.active().resizeChromaRow(top, bottom, colIndex, colDiff, yDiff, x0, x1, chroma);
+
+        int rowBase = (i % TILE_SIZE) * TILE_SIZE;
+        for (int j = x0, k = 0; j < x1; j++, k++) {
+            int cell = rowBase + (j % TILE_SIZE);
+            sums[cell] += chroma[k];
+            counts[cell]++;
+        }
+        foldedPixels += x1 - x0;
+    }
+
+    /**
+     * Mean folded signal per cell, row-major ({@code tile[ty * 64 + tx]}).
+     */
+    double[] meanTile() {
+        double[] tile = new double[TILE_AREA];
+        for (int i = 0; i < TILE_AREA; i++) {
+            if (counts[i] > 0) tile[i] = sums[i] / counts[i];
+        }
+        return tile;
+    }
+
+    /**
+     * Streams {@code source} once, feeding every folder. Stops with a {@link CancellationException}
+     * before the next band once the calling thread is interrupted (e.g. by a detection deadline). Only two copied ARGB rows, one
+     * chrominance row and one band of ARGB rows are resident at any time; rows no folder needs in this pass are not read.
+     *
+     * @return Nanoseconds spent inside {@link PixelSource#readRows} (decoding, for decoder-backed sources).
+     */
+    static long foldAll(PixelSource source, ScaleFolder... folders) {
+        return foldAll(source, null, folders);
+    }
+
+    /**
+     * @param consumed When not {@code null}, receives every source row read.
+     */
+    static long foldAll(PixelSource source, BitSet consumed, ScaleFolder... folders) {
+        return foldAll(source, consumed, null, folders);
+    }
+
+    /**
+     * @param pool When not {@code null} and the source is cheap to re-read, bands of source rows
+     *             are folded concurrently into per-task accumulators and merged at the end. Cells
+     *             differ from the serial fold only by floating-point summation order.
+     * @return Read time; in parallel, the wall time apportioned by the workers' share spent reading.
+     */
+    static long foldAll(PixelSource source, BitSet consumed, ForkJoinPool pool, ScaleFolder... folders) {
+        int h = source.height();
+        if (folders.length == 0 || h == 0) return 0;
+
+        BitSet rows = new BitSet(h);
+        for (ScaleFolder folder : folders) rows.or(folder.sourceRows());
+        // Parallel leaves run on pool workers: they poll the caller's interrupt status
+        Thread requester = Thread.currentThread();
+
+        if (pool == null || !source.isRereadCheap() || h < 2 * PARALLEL_BAND) {
+            return foldRange(source, rows, 0, h, consumed, requester, folders);
+        }
+
+        long start = System.nanoTime();
+        FoldTask task = new FoldTask(source, rows, 0, h, requester, folders);
+        pool.invoke(task);
+        for (int f = 0; f < folders.length; f++) folders[f].merge(task.parts[f]);
+        if (consumed != null) consumed.or(task.consumed);
+        return task.busyNanos == 0 ? 0 : Math.round((System.nanoTime() - start) * (double) task.readNanos / task.busyNanos);
+    }
+
+    /**
+     * Folds the needed source rows in {@code [from, to)}; the bilinear row below {@code to - 1} may be read too.
+     */
+    private static long foldRange(PixelSource source, BitSet rows, int from, int to, BitSet consumed,
+                                  Thread requester, ScaleFolder[] folders) {
+        int w = source.width();
+        PixelKernels kernels = PixelKernels.active();
+        BandReader reader = new BandReader(source, rows, Math.min(to + 1, source.height()), consumed, requester);
+        boolean needsChroma = false;
+        for (ScaleFolder folder : folders) needsChroma |= folder.identity;
+        double[] chroma = new double[w];
+        // Copies: reading the row below may replace the band
+        int[] argb = new int[w];
+        int[] argbBelow = new int[w];
+        int belowRow = -1;
+
+        for (int y = rows.nextSetBit(from); y >= 0 && y < to; ) {
+            int next = rows.nextSetBit(y + 1);
+            if (belowRow == y) {
+                int[] swap = argb;
+                argb = argbBelow;
+                argbBelow = swap;
+            } else {
+                System.arraycopy(reader.band, reader.offsetOf(y), argb, 0, w);
+            }
+            if (next == y + 1) {
+                System.arraycopy(reader.band, reader.offsetOf(next), argbBelow, 0, w);
+                belowRow = next;
+            } else {
+                belowRow = -1;
+            }
+            if (needsChroma) kernels.chromaRow(argb, 0, w, chroma);
+
+            for (ScaleFolder folder : folders) {
+                folder.acceptSourceRow(y, chroma, argb, argbBelow);
+            }
+            y = next;
+        }
+        return reader.readNanos;
+    }
+
+    /**
+     * Source rows split in halves down to {@link #PARALLEL_BAND}; every leaf folds into its own
+     * copies of the folders, and sibling results are merged pairwise on the way up.
+     */
+    private static final class FoldTask extends RecursiveAction {
+        private final PixelSource source;
+        private final BitSet rows;
+        private final int from;
+        private final int to;
+        private final Thread requester;
+        private final ScaleFolder[] folders;
+        ScaleFolder[] parts;
+        final BitSet consumed = new BitSet();
+        long readNanos;
+        long busyNanos;
+
+        FoldTask(PixelSource source, BitSet rows, int from, int to, Thread requester, ScaleFolder[] folders) {
+            this.source = source;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.requester = requester;
+            this.folders = folders;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_BAND) {
+                long start = System.nanoTime();
+                parts = new ScaleFolder[folders.length];
+                for (int f = 0; f < folders.length; f++) parts[f] = new ScaleFolder(folders[f], from);
+                readNanos = foldRange(source, rows, from, to, consumed, requester, parts);
+                busyNanos = System.nanoTime() - start;
+                return;
+            }
+            int mid = from + ((to - from) / 2 + READ_BAND - 1) / READ_BAND * READ_BAND;
+            FoldTask top = new FoldTask(source, rows, from, mid, requester, folders);
+            FoldTask bottom = new FoldTask(source, rows, mid, to, requester, folders);
+            invokeAll(top, bottom);
+            parts = top.parts;
+            for (int f = 0; f < parts.length; f++) parts[f].merge(bottom.parts[f]);
+            consumed.or(top.consumed);
+            consumed.or(bottom.consumed);
+            readNanos = top.readNanos + bottom.readNanos;
+            busyNanos = top.busyNanos + bottom.busyNanos;
+        }
+    }
+
+    /**
+     * Cooperative cancellation point, polled before every band read: a cancelled request
+     * (e.g. one past its detection deadline) releases its thread within one band.
+     */
+    static void checkInterrupted(Thread requester) {
+        if (requester.isInterrupted()) throw new CancellationException("Interrupted while folding");
+    }
+
+    /**
+     * One band of ARGB rows; each read covers a contiguous run of needed rows below {@code limit}.
+     */
+    private static final class BandReader {
+        final int[] band;
+        private final PixelSource source;
+        private final BitSet rows;
+        private final int limit;
+        private final BitSet consumed;
+        private final Thread requester;
+        private int start;
+        private int count;
+        long readNanos;
+
+        BandReader(PixelSource source, BitSet rows, int limit, BitSet consumed, Thread requester) {
+            this.source = source;
+            this.rows = rows;
+            this.limit = limit;
+            this.consumed = consumed;
+            this.requester = requester;
+            this.band = new int[READ_BAND * source.width()];
+        }
+
+        int offsetOf(int y) {
+            if (y < start || y >= start + count) {
+                checkInterrupted(requester);
+                start = y;
+                count = Math.min(READ_BAND, Math.min(rows.nextClearBit(y), limit) - y);
+                long readStart = System.nanoTime();
+                source.readRows(start, count, band, 0);
+                readNanos += System.nanoTime() - readStart;
+                if (consumed != null) consumed.set(start, start + count);
+            }
+            return (y - start) * source.width();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Coarse-to-fine scale search settings for WatermarkDetector.
+ * Scales are detector probe scales (an image resized by r is matched at 1/r).
+ *
+ * The sigma-versus-scale curve is only a few percent wide when the whole image is folded,
+ * because the tile phase drifts linearly across the folded extent. A fold restricted to a
+ * centered window drifts proportionally less, so the search:
+ *   1. folds a geometric grid over [minScale, maxScale] on coarseWindow-pixel windows (one pass),
+ *   2. keeps the best `peaks` local maxima,
+ *   3. refines each around {s / (1 + d), s, s * (1 + d)}, doubling the window and halving d
+ *      per level until the window reaches maxWindow or covers the whole scaled image,
+ *   4. stops as soon as any fold exceeds stopSigma.
+ * The reported sigma always comes from the native fold or the last refinement level.
+ */
+public record ScaleSearch(
+        double minScale,
+        double maxScale,
+        double coarseStep,
+        int coarseWindow,
+        int maxWindow,
+        int peaks,
+        double stopSigma
+) {
+    /** 0.3x to 2x, 8% grid on 128-pixel windows, two peaks refined up to 512-pixel windows. */
+    public static final ScaleSearch DEFAULT = new ScaleSearch(0.3, 2.0, 0.08, 128, 512, 2, 15.0);
+
+    public ScaleSearch {
+        if (!(minScale > 0) || !(maxScale >= minScale)) throw new IllegalArgumentException("Invalid scale range");
+        if (!(coarseStep > 0)) throw new IllegalArgumentException("Coarse step must be positive");
+        if (coarseWindow < ScaleFolder.TILE_SIZE || maxWindow < coarseWindow) {
+            throw new IllegalArgumentException("Windows must cover at least one tile and maxWindow >= coarseWindow");
+        }
+        if (peaks < 1) throw new IllegalArgumentException("At least one peak must be refined");
+    }
+
+    /**
+     * Geometric probe grid from {@code minScale} to {@code maxScale}, both included.
+     */
+    double[] coarseScales() {
+        int steps = (int) Math.ceil(Math.log(maxScale / minScale) / Math.log1p(coarseStep));
+        double[] scales = new double[steps + 1];
+        for (int i = 0; i < steps; i++) scales[i] = minScale * Math.pow(1 + coarseStep, i);
+        scales[steps] = maxScale;
+        return scales;
+    }
+}
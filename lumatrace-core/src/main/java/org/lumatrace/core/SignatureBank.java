@@ -0,0 +1,320 @@
+package org.lumatrace.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Memory-Mapped Signature Bank.
+ * Append-only file of precomputed signature spectra keyed by registration UUID, scanned
+ * in place for blind identification: no signature is regenerated and no per-candidate
+ * object is built while scanning.
+ *
+ * Layout (big-endian):
+ *   header : magic "LTSB", version, tile size, record size (int32 each), padded to 32 bytes
+ *   record : UUID (2 x int64) + half spectrum, 64 rows x 33 columns of (re, im) float32
+ * Spectra belong to the zero-mean, unit-norm signature, so the Pearson coefficient at every
+ * circular shift is one real inverse FFT of conj(Q) * S.
+ *
+ * Tolerance: float32 storage keeps correlations within 1e-5 of SpectralCorrelator.
+ */
+public final class SignatureBank implements Closeable {
+
+    private static final int MAGIC = 0x4C545342; // "LTSB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private static final int TILE_SIZE = SpectralCorrelator.TILE_SIZE;
+    private static final int TILE_AREA = SpectralCorrelator.TILE_AREA;
+    private static final int HALF = TILE_SIZE / 2 + 1;
+    private static final int HALF_AREA = TILE_SIZE * HALF;
+    private static final int ID_BYTES = 2 * Long.BYTES;
+    static final int RECORD_BYTES = ID_BYTES + HALF_AREA * 2 * Float.BYTES;
+
+    // Each mapping stays far below the 2 GB MappedByteBuffer limit
+    private static final int CHUNK_RECORDS = (1 << 30) / RECORD_BYTES;
+    private static final int LEAF_RECORDS = 256;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private volatile long count;
+
+    /**
+     * Registration identifier and its peak Pearson coefficient against the query tile.
+     */
+    public record Hit(UUID id, double correlation) {}
+
+    private SignatureBank(Path path, FileChannel channel, long count) {
+        this.path = path;
+        this.channel = channel;
+        this.count = count;
+    }
+
+    /**
+     * Opens {@code path}, creating an empty bank if the file does not exist.
+     * A torn trailing record left by an interrupted append is discarded.
+     */
+    public static SignatureBank open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(TILE_SIZE).putInt(RECORD_BYTES).rewind();
+                writeFully(channel, header, 0);
+                size = HEADER_BYTES;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                if (size < HEADER_BYTES || channel.read(header, 0) < HEADER_BYTES
+                        || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                        || header.getInt(8) != TILE_SIZE || header.getInt(12) != RECORD_BYTES) {
+                    throw new IOException("Not a compatible signature bank: " + path);
+                }
+            }
+            long records = (size - HEADER_BYTES) / RECORD_BYTES;
+            long expected = HEADER_BYTES + records * RECORD_BYTES;
+            if (size > expected) channel.truncate(expected);
+            return new SignatureBank(path, channel, records);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path path() { return path; }
+
+    /** Number of complete records; appends become visible to scans started afterwards. */
+    public long size() { return count; }
+
+    /**
+     * Appends the signature derived from {@code seed} under registration {@code id}.
+     */
+    public void append(UUID id, long seed) throws IOException {
+        append(id, SignatureGenerator.generate(seed));
+    }
+
+    public synchronized void append(UUID id, double[][] signature) throws IOException {
+        double[] re = new double[TILE_AREA];
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                re[y * TILE_SIZE + x] = signature[x][y];
+            }
+        }
+        if (!normalize(re)) throw new IllegalArgumentException("Signature has no variance");
+        double[] im = new double[TILE_AREA];
+        SpectralCorrelator.fft2d(re, im, false);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        record.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        for (int ky = 0; ky < TILE_SIZE; ky++) {
+            for (int kx = 0; kx < HALF; kx++) {
+                record.putFloat((float) re[ky * TILE_SIZE + kx]).putFloat((float) im[ky * TILE_SIZE + kx]);
+            }
+        }
+        record.flip();
+        writeFully(channel, record, HEADER_BYTES + count * RECORD_BYTES);
+        count++;
+    }
+
+    /**
+     * Scans every record against a folded, row-major query tile on the common pool.
+     *
+     * @return Up to {@code limit} hits ranked by descending correlation.
+     */
+    public List<Hit> scan(double[] queryTile, int limit) throws IOException {
+        return scan(queryTile, limit, ForkJoinPool.commonPool());
+    }
+
+    public List<Hit> scan(double[] queryTile, int limit, ForkJoinPool pool) throws IOException {
+        if (queryTile.length != TILE_AREA) throw new IllegalArgumentException("Tile must hold " + TILE_AREA + " cells");
+        long records = count;
+        double[] re = queryTile.clone();
+        if (records == 0 || limit < 1 || !normalize(re)) return List.of();
+
+        double[] im = new double[TILE_AREA];
+        SpectralCorrelator.fft2d(re, im, false);
+        double[] qRe = new double[HALF_AREA];
+        double[] qIm = new double[HALF_AREA];
+        for (int ky = 0; ky < TILE_SIZE; ky++) {
+            for (int kx = 0; kx < HALF; kx++) {
+                qRe[ky * HALF + kx] = re[ky * TILE_SIZE + kx];
+                qIm[ky * HALF + kx] = im[ky * TILE_SIZE + kx];
+            }
+        }
+        return pool.invoke(new ScanTask(map(records), qRe, qIm, 0, records, limit));
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            chunks.clear();
+        }
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[SIGNATURE_BANK] %s | Records: %d | %.1f MB",
+                path, count, (HEADER_BYTES + count * (double) RECORD_BYTES) / (1 << 20));
+    }
+
+    /**
+     * Read-only mappings covering the first {@code records} records. Full chunks are mapped
+     * once; the tail chunk is remapped only when appends have outgrown it.
+     */
+    private synchronized ByteBuffer[] map(long records) throws IOException {
+        int needed = (int) ((records + CHUNK_RECORDS - 1) / CHUNK_RECORDS);
+        ByteBuffer[] mapped = new ByteBuffer[needed];
+        for (int c = 0; c < needed; c++) {
+            long first = (long) c * CHUNK_RECORDS;
+            long bytes = Math.min(CHUNK_RECORDS, records - first) * RECORD_BYTES;
+            MappedByteBuffer chunk = c < chunks.size() ? chunks.get(c) : null;
+            if (chunk == null || chunk.capacity() < bytes) {
+                chunk = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES, bytes);
+                if (c < chunks.size()) chunks.set(c, chunk);
+                else chunks.add(chunk);
+            }
+            mapped[c] = chunk;
+        }
+        return mapped;
+    }
+
+    /**
+     * Subtracts the mean and scales to unit L2 norm. Returns false for a flat tile.
+     */
+    private static boolean normalize(double[] tile) {
+        double sum = 0;
+        for (double v : tile) sum += v;
+        double mean = sum / tile.length;
+        double sumSq = 0;
+        for (int i = 0; i < tile.length; i++) {
+            tile[i] -= mean;
+            sumSq += tile[i] * tile[i];
+        }
+        if (sumSq == 0) return false;
+        double inv = 1.0 / Math.sqrt(sumSq);
+        for (int i = 0; i < tile.length; i++) tile[i] *= inv;
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Fork-join scan over a contiguous record range; each leaf keeps its own top-K heap
+     * and scratch buffers, and results are merged on the way back up.
+     */
+    private static final class ScanTask extends RecursiveTask<List<Hit>> {
+        private final ByteBuffer[] chunks;
+        private final double[] qRe;
+        private final double[] qIm;
+        private final long from;
+        private final long to;
+        private final int limit;
+
+        ScanTask(ByteBuffer[] chunks, double[] qRe, double[] qIm, long from, long to, int limit) {
+            this.chunks = chunks;
+            this.qRe = qRe;
+            this.qIm = qIm;
+            this.from = from;
+            this.to = to;
+            this.limit = limit;
+        }
+
+        @Override
+        protected List<Hit> compute() {
+            if (to - from > LEAF_RECORDS) {
+                long mid = (from + to) >>> 1;
+                ScanTask upper = new ScanTask(chunks, qRe, qIm, mid, to, limit);
+                upper.fork();
+                List<Hit> lower = new ScanTask(chunks, qRe, qIm, from, mid, limit).compute();
+                return merge(lower, upper.join(), limit);
+            }
+
+            double[] hRe = new double[HALF_AREA];
+            double[] hIm = new double[HALF_AREA];
+            double[] rowRe = new double[TILE_SIZE];
+            double[] rowIm = new double[TILE_SIZE];
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Hit::correlation));
+
+            for (long r = from; r < to; r++) {
+                ByteBuffer chunk = chunks[(int) (r / CHUNK_RECORDS)];
+                int base = (int) (r % CHUNK_RECORDS) * RECORD_BYTES;
+                double corr = peak(chunk, base + ID_BYTES, hRe, hIm, rowRe, rowIm);
+                if (top.size() < limit || corr > top.peek().correlation()) {
+                    top.add(new Hit(new UUID(chunk.getLong(base), chunk.getLong(base + Long.BYTES)), corr));
+                    if (top.size() > limit) top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(Comparator.comparingDouble(Hit::correlation).reversed());
+            return hits;
+        }
+
+        /**
+         * Peak of IFFT(conj(Q) * S) over all 4096 shifts, using Hermitian symmetry:
+         * columns are inverted on the half spectrum, then two real rows share one complex transform.
+         */
+        private double peak(ByteBuffer chunk, int offset, double[] hRe, double[] hIm, double[] rowRe, double[] rowIm) {
+            for (int i = 0, p = offset; i < HALF_AREA; i++, p += 2 * Float.BYTES) {
+                double sr = chunk.getFloat(p);
+                double si = chunk.getFloat(p + Float.BYTES);
+                hRe[i] = qRe[i] * sr + qIm[i] * si;
+                hIm[i] = qRe[i] * si - qIm[i] * sr;
+            }
+            for (int kx = 0; kx < HALF; kx++) {
+                SpectralCorrelator.fft(hRe, hIm, kx, HALF, true);
+            }
+
+            double max = 0;
+            for (int y = 0; y < TILE_SIZE; y += 2) {
+                int a = y * HALF;
+                int b = a + HALF;
+                // z = rowA + i * rowB; the upper half mirrors conj(A) + i * conj(B)
+                for (int kx = 0; kx < HALF; kx++) {
+                    rowRe[kx] = hRe[a + kx] - hIm[b + kx];
+                    rowIm[kx] = hIm[a + kx] + hRe[b + kx];
+                }
+                for (int kx = HALF; kx < TILE_SIZE; kx++) {
+                    int m = TILE_SIZE - kx;
+                    rowRe[kx] = hRe[a + m] + hIm[b + m];
+                    rowIm[kx] = hRe[b + m] - hIm[a + m];
+                }
+                SpectralCorrelator.fft(rowRe, rowIm, 0, 1, true);
+                for (int x = 0; x < TILE_SIZE; x++) {
+                    if (rowRe[x] > max) max = rowRe[x];
+                    if (rowIm[x] > max) max = rowIm[x];
+                }
+            }
+            // Inverse transform is unnormalized: N * dot(q, s)
+            return max / TILE_AREA;
+        }
+
+        private static List<Hit> merge(List<Hit> a, List<Hit> b, int limit) {
+            List<Hit> merged = new ArrayList<>(a.size() + b.size());
+            merged.addAll(a);
+            merged.addAll(b);
+            merged.sort(Comparator.comparingDouble(Hit::correlation).reversed());
+            return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.lumatrace.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Bounded LRU cache of 64x64 signatures keyed by derived seed.
+ * Shared by WatermarkEngine and WatermarkDetector so repeated verification of the
+ * same registrations skips signature generation entirely.
+ * Cached tiles are shared between callers and MUST be treated as read-only.
+ */
+public final class SignatureCache {
+
+    /** ~32 KB per entry; 256 entries keep the shared cache around 8 MB. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final SignatureCache SHARED = new SignatureCache(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final Map<Long, double[][]> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SignatureCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, double[][]> eldest) {
+                if (size() > SignatureCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Process-wide instance used by the default engine and detector constructors.
+     */
+    public static SignatureCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the signature for {@code seed}, generating it on a miss.
+     * Generation runs outside the lock; concurrent misses on the same seed may
+     * both generate, but the results are identical and only one is retained.
+     */
+    public double[][] get(long seed) {
+        synchronized (entries) {
+            double[][] cached = entries.get(seed);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        double[][] generated = SignatureGenerator.generate(seed);
+        synchronized (entries) {
+            double[][] raced = entries.putIfAbsent(seed, generated);
+            return raced != null ? raced : generated;
+        }
+    }
+
+    /**
+     * Read-through without insertion: returns the cached tile on a hit (counted as a hit),
+     * otherwise generates a fresh tile that is not retained (counted as a miss). Used for one-off bulk scans.
+     */
+    public double[][] getOrGenerate(long seed) {
+        synchronized (entries) {
+            double[][] cached = entries.get(seed);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        return SignatureGenerator.generate(seed);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int capacity() { return capacity; }
+    public long hitCount() { return hits.sum(); }
+    public long missCount() { return misses.sum(); }
+    public long evictionCount() { return evictions.sum(); }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[SIGNATURE_CACHE] Size: %d/%d | Hits: %d | Misses: %d | Evictions: %d",
+                size(), capacity, hitCount(), missCount(), evictionCount());
+    }
+}
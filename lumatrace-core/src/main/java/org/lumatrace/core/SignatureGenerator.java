@@ -0,0 +1,99 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Allocation-Light Signature Generator.
+ * Produces output bit-identical to the legacy per-cell java.util.Random scheme
+ * by running the same 48-bit LCG and polar Gaussian transform inline.
+ * The low-frequency component is constant over 4x4 blocks, so it is computed
+ * once per block (256 draws) instead of once per cell (4096 Random instances).
+ */
+final class SignatureGenerator {
+
+    private static final int TILE_SIZE = WatermarkEngine.TILE_SIZE;
+    private static final int LF_BLOCK = 4;
+    private static final int LF_BLOCKS = TILE_SIZE / LF_BLOCK;
+
+    // Spectral Weighting
+    private static final double LF_WEIGHT = 0.85;
+    private static final double HF_WEIGHT = 0.15;
+
+    private SignatureGenerator() {}
+
+    static double[][] generate(long seed) {
+        Object event = CoreEvents.active().beginSignature();
+        double[][] sig = new double[TILE_SIZE][TILE_SIZE];
+        LegacyGaussian hfStream = new LegacyGaussian(seed);
+        LegacyGaussian lfStream = new LegacyGaussian(0);
+        double[] lfRow = new double[LF_BLOCKS];
+
+        for (int y = 0; y < TILE_SIZE; y++) {
+            if (y % LF_BLOCK == 0) {
+                // Legacy: new Random(seed + (x / 4) * 1000 + (y / 4)).nextGaussian()
+                for (int bx = 0; bx < LF_BLOCKS; bx++) {
+                    lfStream.reset(seed + bx * 1000L + (y / LF_BLOCK));
+                    lfRow[bx] = lfStream.nextGaussian();
+                }
+            }
+            for (int x = 0; x < TILE_SIZE; x++) {
+                double lf = lfRow[x / LF_BLOCK];
+                double hf = hfStream.nextGaussian();
+                sig[x][y] = (LF_WEIGHT * lf) + (HF_WEIGHT * hf);
+            }
+        }
+        CoreEvents.active().commitSignature(event);
+        return sig;
+    }
+
+    /**
+     * Unsynchronized replica of {@code java.util.Random#nextGaussian()}.
+     * Constants and arithmetic order mirror the JDK exactly.
+     */
+    private static final class LegacyGaussian {
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long ADDEND = 0xBL;
+        private static final long MASK = (1L << 48) - 1;
+        private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+        private long state;
+        private double nextNextGaussian;
+        private boolean haveNextNextGaussian;
+
+        LegacyGaussian(long seed) {
+            reset(seed);
+        }
+
+        void reset(long seed) {
+            state = (seed ^ MULTIPLIER) & MASK;
+            haveNextNextGaussian = false;
+        }
+
+        private int next(int bits) {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+
+        private double nextDouble() {
+            return (((long) (next(26)) << 27) + next(27)) * DOUBLE_UNIT;
+        }
+
+        double nextGaussian() {
+            if (haveNextNextGaussian) {
+                haveNextNextGaussian = false;
+                return nextNextGaussian;
+            }
+            double v1, v2, s;
+            do {
+                v1 = 2 * nextDouble() - 1;
+                v2 = 2 * nextDouble() - 1;
+                s = v1 * v1 + v2 * v2;
+            } while (s >= 1 || s == 0);
+            double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+            nextNextGaussian = v2 * multiplier;
+            haveNextNextGaussian = true;
+            return v1 * multiplier;
+        }
+    }
+}
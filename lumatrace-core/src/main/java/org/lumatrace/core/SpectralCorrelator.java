@@ -0,0 +1,202 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Frequency-Domain Phase Search Engine.
+ * Computes the circular cross-correlation of two 64x64 tiles with a pure-Java
+ * radix-2 FFT, replacing the O(N^2) brute-force shift scan with O(N log N).
+ *
+ * Tolerance: the Pearson coefficient returned for the best shift agrees with the
+ * direct spatial scan to within 1e-9 (absolute). Only floating-point summation
+ * order differs; the statistic itself is mathematically identical.
+ */
+public final class SpectralCorrelator {
+
+    public static final int TILE_SIZE = WatermarkEngine.TILE_SIZE;
+    public static final int TILE_AREA = TILE_SIZE * TILE_SIZE;
+
+    private static final int LOG2_TILE = Integer.numberOfTrailingZeros(TILE_SIZE);
+
+    // Twiddle factors e^(-2*pi*i*k/N) for k < N/2
+    private static final double[] COS = new double[TILE_SIZE / 2];
+    private static final double[] SIN = new double[TILE_SIZE / 2];
+    private static final int[] BIT_REVERSE = new int[TILE_SIZE];
+
+    static {
+        for (int k = 0; k < TILE_SIZE / 2; k++) {
+            double angle = 2 * Math.PI * k / TILE_SIZE;
+            COS[k] = Math.cos(angle);
+            SIN[k] = Math.sin(angle);
+        }
+        for (int i = 0; i < TILE_SIZE; i++) {
+            BIT_REVERSE[i] = Integer.reverse(i) >>> (Integer.SIZE - LOG2_TILE);
+        }
+    }
+
+    private SpectralCorrelator() {}
+
+    /**
+     * Frequency-domain view of a tile, together with the spatial moments
+     * required for Pearson normalization. Immutable once built.
+     */
+    public static final class Spectrum {
+        final double[] re;
+        final double[] im;
+        final double sum;
+        final double sumSq;
+
+        private Spectrum(double[] re, double[] im, double sum, double sumSq) {
+            this.re = re;
+            this.im = im;
+            this.sum = sum;
+            this.sumSq = sumSq;
+        }
+    }
+
+    /**
+     * Transforms a tile stored in the detector's {@code [x][y]} layout.
+     */
+    public static Spectrum transform(double[][] tile) {
+        double[] flat = new double[TILE_AREA];
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                flat[y * TILE_SIZE + x] = tile[x][y];
+            }
+        }
+        return transformInPlace(flat);
+    }
+
+    /**
+     * Transforms a row-major tile ({@code tile[y * 64 + x]}). The input is not modified.
+     */
+    public static Spectrum transform(double[] tile) {
+        if (tile.length != TILE_AREA) throw new IllegalArgumentException("Tile must hold " + TILE_AREA + " cells");
+        return transformInPlace(tile.clone());
+    }
+
+    private static Spectrum transformInPlace(double[] re) {
+        double sum = 0, sumSq = 0;
+        for (double v : re) {
+            sum += v;
+            sumSq += v * v;
+        }
+        double[] im = new double[TILE_AREA];
+        fft2d(re, im, false);
+        return new Spectrum(re, im, sum, sumSq);
+    }
+
+    /**
+     * Returns the maximum Pearson coefficient between {@code a} and every circular
+     * shift of {@code b}, floored at zero (negative correlation is never evidence).
+     */
+    public static double peakCorrelation(Spectrum a, Spectrum b) {
+        double[] re = new double[TILE_AREA];
+        double[] im = new double[TILE_AREA];
+        return peakCorrelation(a, b, re, im);
+    }
+
+    /**
+     * Allocation-free variant for callers that correlate repeatedly; {@code re}
+     * and {@code im} are scratch buffers of {@link #TILE_AREA} cells.
+     */
+    public static double peakCorrelation(Spectrum a, Spectrum b, double[] re, double[] im) {
+        double n = TILE_AREA;
+        double varA = n * a.sumSq - a.sum * a.sum;
+        double varB = n * b.sumSq - b.sum * b.sum;
+        double den = Math.sqrt(varA * varB);
+        if (den == 0) return 0;
+
+        // Correlation theorem: corr(a, b)[d] = IFFT(conj(A) * B)[d]
+        for (int i = 0; i < TILE_AREA; i++) {
+            double ar = a.re[i], ai = a.im[i];
+            double br = b.re[i], bi = b.im[i];
+            re[i] = ar * br + ai * bi;
+            im[i] = ar * bi - ai * br;
+        }
+        fft2d(re, im, true);
+        return peak(re, a.sum * b.sum, den);
+    }
+
+    /**
+     * Same as {@code peakCorrelation(transform(tile), b, re, im)} without allocating: the
+     * forward transform of {@code tile} is computed in the scratch buffers and multiplied in place.
+     */
+    static double peakCorrelation(double[] tile, Spectrum b, double[] re, double[] im) {
+        double sum = 0, sumSq = 0;
+        for (int i = 0; i < TILE_AREA; i++) {
+            double v = tile[i];
+            re[i] = v;
+            im[i] = 0;
+            sum += v;
+            sumSq += v * v;
+        }
+        double n = TILE_AREA;
+        double den = Math.sqrt((n * sumSq - sum * sum) * (n * b.sumSq - b.sum * b.sum));
+        if (den == 0) return 0;
+
+        fft2d(re, im, false);
+        for (int i = 0; i < TILE_AREA; i++) {
+            double ar = re[i], ai = im[i];
+            double br = b.re[i], bi = b.im[i];
+            re[i] = ar * br + ai * bi;
+            im[i] = ar * bi - ai * br;
+        }
+        fft2d(re, im, true);
+        return peak(re, sum * b.sum, den);
+    }
+
+    private static double peak(double[] re, double cross, double den) {
+        // Inverse transform is unnormalized: re[d] == N * dot(d)
+        double maxCorr = 0;
+        for (int i = 0; i < TILE_AREA; i++) {
+            double corr = (re[i] - cross) / den;
+            if (corr > maxCorr) maxCorr = corr;
+        }
+        return maxCorr;
+    }
+
+    static void fft2d(double[] re, double[] im, boolean inverse) {
+        for (int row = 0; row < TILE_SIZE; row++) {
+            fft(re, im, row * TILE_SIZE, 1, inverse);
+        }
+        for (int col = 0; col < TILE_SIZE; col++) {
+            fft(re, im, col, TILE_SIZE, inverse);
+        }
+    }
+
+    /**
+     * In-place iterative radix-2 Cooley-Tukey over one strided line of the tile.
+     */
+    static void fft(double[] re, double[] im, int offset, int stride, boolean inverse) {
+        for (int i = 0; i < TILE_SIZE; i++) {
+            int j = BIT_REVERSE[i];
+            if (j > i) {
+                int p = offset + i * stride;
+                int q = offset + j * stride;
+                double tr = re[p]; re[p] = re[q]; re[q] = tr;
+                double ti = im[p]; im[p] = im[q]; im[q] = ti;
+            }
+        }
+
+        for (int len = 2; len <= TILE_SIZE; len <<= 1) {
+            int half = len >> 1;
+            int twiddleStep = TILE_SIZE / len;
+            for (int start = 0; start < TILE_SIZE; start += len) {
+                for (int k = 0; k < half; k++) {
+                    double wr = COS[k * twiddleStep];
+                    double wi = inverse ? SIN[k * twiddleStep] : -SIN[k * twiddleStep];
+                    int p = offset + (start + k) * stride;
+                    int q = p + half * stride;
+                    double xr = re[q] * wr - im[q] * wi;
+                    double xi = re[q] * wi + im[q] * wr;
+                    re[q] = re[p] - xr;
+                    im[q] = im[p] - xi;
+                    re[p] += xr;
+                    im[p] += xi;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.lumatrace.core;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Window grid for tamper localization (WatermarkDetector.localize).
+ * Windows of `window x window` source pixels start every `stride` pixels; both are multiples
+ * of the 64-pixel tile so every window is a union of stride-sized blocks, each folded once.
+ * Windows on the right and bottom edges are clipped to the image.
+ */
+public record TamperGrid(int window, int stride) {
+
+    /** 256-pixel windows with 50% overlap. */
+    public static final TamperGrid DEFAULT = new TamperGrid(256, 128);
+
+    public TamperGrid {
+        if (window < ScaleFolder.TILE_SIZE || window % ScaleFolder.TILE_SIZE != 0) {
+            throw new IllegalArgumentException("Window must be a positive multiple of " + ScaleFolder.TILE_SIZE);
+        }
+        if (stride < ScaleFolder.TILE_SIZE || stride % ScaleFolder.TILE_SIZE != 0 || stride > window || window % stride != 0) {
+            throw new IllegalArgumentException("Stride must be a multiple of " + ScaleFolder.TILE_SIZE + " that divides the window");
+        }
+    }
+}
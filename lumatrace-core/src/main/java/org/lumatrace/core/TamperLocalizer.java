@@ -0,0 +1,162 @@
+package org.lumatrace.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * Tiled tamper localization at the native scale.
+ * The image is folded once into stride x stride blocks (one 64x64 sum tile per block), so
+ * overlapping windows never fold a pixel twice: a window's tile is the sum of its blocks.
+ * Windows are then correlated against one shared signature spectrum, in parallel batches
+ * that reuse one set of scratch buffers each.
+ * Memory: one 32 KB tile per block (about 24 MB for 12 MP with the default 128-pixel stride).
+ */
+final class TamperLocalizer {
+
+    private static final int TILE_SIZE = ScaleFolder.TILE_SIZE;
+    private static final int TILE_AREA = ScaleFolder.TILE_AREA;
+    private static final int READ_BAND = 64;
+    // Windows correlated per task; each task allocates its scratch buffers once
+    private static final int WINDOWS_PER_TASK = 16;
+
+    private TamperLocalizer() {}
+
+    /**
+     * @param pool Runs block rows (sources cheap to re-read only) and window batches concurrently,
+     *             or {@code null} to run everything on the calling thread.
+     */
+    static TamperMap localize(PixelSource source, SpectralCorrelator.Spectrum signature, TamperGrid grid, ForkJoinPool pool) {
+        int w = source.width();
+        int h = source.height();
+        int window = grid.window();
+        int stride = grid.stride();
+        if (w < TILE_SIZE || h < TILE_SIZE) return new TamperMap(window, stride, 0, 0, new double[0]);
+
+        int blockCols = ceilDiv(w, stride);
+        int blockRows = ceilDiv(h, stride);
+        double[][][] blocks = new double[blockRows][][];
+        // Pool tasks poll the caller's interrupt status (see ScaleFolder.checkInterrupted)
+        Thread requester = Thread.currentThread();
+        if (pool != null && source.isRereadCheap()) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(blockRows);
+            for (int by = 0; by < blockRows; by++) {
+                int row = by;
+                tasks.add(pool.submit(() -> blocks[row] = foldBlockRow(source, row, stride, blockCols, requester)));
+            }
+            for (ForkJoinTask<?> task : tasks) task.join();
+        } else {
+            for (int by = 0; by < blockRows; by++) blocks[by] = foldBlockRow(source, by, stride, blockCols, requester);
+        }
+
+        int columns = windowsAlong(w, window, stride);
+        int rows = windowsAlong(h, window, stride);
+        double[] sigmas = new double[columns * rows];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int first = 0; first < sigmas.length; first += WINDOWS_PER_TASK) {
+            int from = first;
+            int to = Math.min(first + WINDOWS_PER_TASK, sigmas.length);
+            Runnable batch = () -> {
+                ScaleFolder.checkInterrupted(requester);
+                double[] tile = new double[TILE_AREA];
+                double[] re = new double[TILE_AREA];
+                double[] im = new double[TILE_AREA];
+                for (int i = from; i < to; i++) {
+                    sigmas[i] = windowSigma(blocks, i % columns, i / columns, w, h, grid, signature, tile, re, im);
+                }
+            };
+            if (pool != null) {
+                tasks.add(pool.submit(batch));
+            } else {
+                batch.run();
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) task.join();
+        return new TamperMap(window, stride, columns, rows, sigmas);
+    }
+
+    /**
+     * Folds source rows {@code [by * stride, (by + 1) * stride)} into one sum tile per block.
+     */
+    private static double[][] foldBlockRow(PixelSource source, int by, int stride, int blockCols, Thread requester) {
+        int w = source.width();
+        int y0 = by * stride;
+        int y1 = Math.min(y0 + stride, source.height());
+        double[][] sums = new double[blockCols][TILE_AREA];
+
+        PixelKernels kernels = PixelKernels.active();
+        int[] band = new int[READ_BAND * w];
+        double[] chroma = new double[w];
+        for (int start = y0; start < y1; start += READ_BAND) {
+            int count = Math.min(READ_BAND, y1 - start);
+            ScaleFolder.checkInterrupted(requester);
+            source.readRows(start, count, band, 0);
+            for (int r = 0; r < count; r++) {
+                kernels.chromaRow(band, r * w, w, chroma);
+                int rowBase = ((start + r) % TILE_SIZE) * TILE_SIZE;
+                for (int bx = 0; bx < blockCols; bx++) {
+                    double[] block = sums[bx];
+                    // Blocks start on tile boundaries: column x falls on cell x % 64
+                    for (int x = bx * stride, end = Math.min(x + stride, w); x < end; x++) {
+                        block[rowBase + (x & (TILE_SIZE - 1))] += chroma[x];
+                    }
+                }
+            }
+        }
+        return sums;
+    }
+
+    private static double windowSigma(double[][][] blocks, int column, int row, int w, int h, TamperGrid grid,
+                                      SpectralCorrelator.Spectrum signature, double[] tile, double[] re, double[] im) {
+        int stride = grid.stride();
+        int span = grid.window() / stride;
+        int x0 = column * stride;
+        int y0 = row * stride;
+        int x1 = Math.min(x0 + grid.window(), w);
+        int y1 = Math.min(y0 + grid.window(), h);
+
+        Arrays.fill(tile, 0);
+        for (int by = row; by < Math.min(row + span, blocks.length); by++) {
+            for (int bx = column; bx < Math.min(column + span, blocks[by].length); bx++) {
+                double[] block = blocks[by][bx];
+                for (int i = 0; i < TILE_AREA; i++) tile[i] += block[i];
+            }
+        }
+
+        // Mean per cell: the window is a rectangle, so counts factor into columns x rows
+        for (int ty = 0; ty < TILE_SIZE; ty++) {
+            int countY = countCongruent(y0, y1, ty);
+            for (int tx = 0; tx < TILE_SIZE; tx++) {
+                int count = countY * countCongruent(x0, x1, tx);
+                int cell = ty * TILE_SIZE + tx;
+                tile[cell] = count > 0 ? tile[cell] / count : 0;
+            }
+        }
+
+        double tiles = (x1 - x0) * (double) (y1 - y0) / TILE_AREA;
+        return WatermarkDetector.sigma(SpectralCorrelator.peakCorrelation(tile, signature, re, im), tiles);
+    }
+
+    /**
+     * Windows needed to cover {@code length} pixels; the last one may be clipped.
+     */
+    private static int windowsAlong(int length, int window, int stride) {
+        return length <= window ? 1 : ceilDiv(length - window, stride) + 1;
+    }
+
+    /**
+     * Values {@code v} in {@code [from, to)} with {@code v % 64 == cell}.
+     */
+    private static int countCongruent(int from, int to, int cell) {
+        return Math.floorDiv(to - 1 - cell, TILE_SIZE) - Math.floorDiv(from - 1 - cell, TILE_SIZE);
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
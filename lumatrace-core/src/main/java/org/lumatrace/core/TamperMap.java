@@ -0,0 +1,27 @@
+package org.lumatrace.core;
+
+/**
+ * Per-window sigma of a tamper localization run, row-major ({@code sigmas[row * columns + column]}).
+ * Same statistic as {@link DetectionReport#confidenceSigma()}, normalized by the window area:
+ * on a marked image, spliced or pasted regions show up as windows far below their neighbours.
+ */
+public record TamperMap(int window, int stride, int columns, int rows, double[] sigmas) {
+
+    public double sigma(int column, int row) {
+        return sigmas[row * columns + column];
+    }
+
+    /**
+     * Left edge of the windows in {@code column}, in source pixels.
+     */
+    public int x(int column) {
+        return column * stride;
+    }
+
+    /**
+     * Top edge of the windows in {@code row}, in source pixels.
+     */
+    public int y(int row) {
+        return row * stride;
+    }
+}
@@ -0,0 +1,188 @@
+package org.lumatrace.core;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static org.lumatrace.core.WatermarkEngine.*;
+
+/*
+ * Copyright (c) 2026 David Rivera Ruz.
+ * Licensed under the GNU General Public License v3.0.
+ *
+ * SIMD kernels on the JDK Vector API (AVX2 / AVX-512 / NEON).
+ * Lanes hold doubles; ARGB words are loaded through an int species with the same lane
+ * count and widened with I2D. Every lane performs exactly the scalar operation sequence
+ * (no FMA), so results are bit-identical to ScalarKernels.
+ * Only loaded reflectively by PixelKernels when jdk.incubator.vector is resolved.
+ */
+final class VectorKernels implements PixelKernels {
+
+    static final VectorKernels INSTANCE = new VectorKernels();
+
+    private static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> IS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DS.vectorBitSize() / 2));
+    private static final int LANES = DS.length();
+    // Bilinear resize works in float, as the legacy resize did: one int lane per float lane
+    private static final VectorSpecies<Float> FS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> FIS = VectorSpecies.of(int.class, FS.vectorShape());
+
+    private VectorKernels() {}
+
+    @Override
+    public void lumaRow(int[] argb, int offset, int w, double[] out) {
+        int bound = DS.loopBound(w);
+        int x = 0;
+        for (; x < bound; x += LANES) {
+            IntVector rgb = IntVector.fromArray(IS, argb, offset + x);
+            DoubleVector r = channel(rgb, 16);
+            DoubleVector g = channel(rgb, 8);
+            DoubleVector b = channel(rgb, 0);
+            r.mul(LUMA_R).add(g.mul(LUMA_G)).add(b.mul(LUMA_B)).intoArray(out, x);
+        }
+        for (; x < w; x++) {
+            int rgb = argb[offset + x];
+            out[x] = ((rgb >> 16) & 0xFF) * LUMA_R + ((rgb >> 8) & 0xFF) * LUMA_G + (rgb & 0xFF) * LUMA_B;
+        }
+    }
+
+    @Override
+    public void chromaRow(int[] argb, int offset, int w, double[] out) {
+        int bound = DS.loopBound(w);
+        int x = 0;
+        for (; x < bound; x += LANES) {
+            IntVector rgb = IntVector.fromArray(IS, argb, offset + x);
+            DoubleVector r = channel(rgb, 16);
+            DoubleVector g = channel(rgb, 8);
+            DoubleVector b = channel(rgb, 0);
+            DoubleVector luma = r.mul(LUMA_R).add(g.mul(LUMA_G)).add(b.mul(LUMA_B));
+            b.sub(luma).intoArray(out, x);
+        }
+        for (; x < w; x++) {
+            int rgb = argb[offset + x];
+            int b = rgb & 0xFF;
+            double luma = LUMA_R * ((rgb >> 16) & 0xFF) + LUMA_G * ((rgb >> 8) & 0xFF) + LUMA_B * b;
+            out[x] = (double) b - luma;
+        }
+    }
+
+    @Override
+    public void embedRow(int[] src, int srcOffset, int[] dst, int dstOffset, int w,
+                         double[] luma, double[] lumaBelow, boolean hasBelow, double[] sigRow) {
+        // Gradient pixels only: the last column (and the last row) take the scalar path.
+        // LANES divides TILE_SIZE, so a vector never straddles the signature wrap-around.
+        int bound = hasBelow ? DS.loopBound(w - 1) : 0;
+        int x = 0;
+        for (; x < bound; x += LANES) {
+            DoubleVector current = DoubleVector.fromArray(DS, luma, x);
+            DoubleVector entropy = current.sub(DoubleVector.fromArray(DS, luma, x + 1)).abs()
+                    .add(current.sub(DoubleVector.fromArray(DS, lumaBelow, x)).abs());
+
+            DoubleVector gain = entropy.div(ENTROPY_NORMALIZATION).min(1.0)
+                    .mul(MAX_GAIN - MIN_GAIN).add(MIN_GAIN);
+            DoubleVector signal = DoubleVector.fromArray(DS, sigRow, x % TILE_SIZE).mul(gain);
+
+            IntVector rgb = IntVector.fromArray(IS, src, srcOffset + x);
+            IntVector a = rgb.lanewise(VectorOperators.LSHR, 24).lanewise(VectorOperators.LSHL, 24);
+            IntVector r = clamp(channel(rgb, 16).add(signal.mul(VEC_RED)));
+            IntVector g = clamp(channel(rgb, 8).add(signal.mul(VEC_GREEN)));
+            IntVector b = clamp(channel(rgb, 0).add(signal.mul(VEC_BLUE)));
+
+            a.or(r.lanewise(VectorOperators.LSHL, 16))
+                    .or(g.lanewise(VectorOperators.LSHL, 8))
+                    .or(b)
+                    .intoArray(dst, dstOffset + x);
+        }
+        ScalarKernels.INSTANCE.embedRange(src, srcOffset, dst, dstOffset, w, luma, lumaBelow, hasBelow, sigRow, x);
+    }
+
+    // Byte-indexed gain lookups have no cheap vector gather: the scalar loops are used as is
+    @Override
+    public void gainRow(double[] luma, double[] lumaBelow, boolean hasBelow, int w, byte[] levels, int offset) {
+        ScalarKernels.INSTANCE.gainRow(luma, lumaBelow, hasBelow, w, levels, offset);
+    }
+
+    @Override
+    public void embedRowWithGain(int[] src, int srcOffset, int[] dst, int dstOffset, int w,
+                                 byte[] levels, int levelOffset, double[] gains, double[] sigRow) {
+        ScalarKernels.INSTANCE.embedRowWithGain(src, srcOffset, dst, dstOffset, w, levels, levelOffset, gains, sigRow);
+    }
+
+    @Override
+    public void resizeChromaRow(int[] top, int[] bottom, int[] colIndex, float[] colDiff, float yDiff, int from, int to, double[] out) {
+        FloatVector one = FloatVector.broadcast(FS, 1f);
+        float yRest = 1 - yDiff;
+        int bound = from + FS.loopBound(to - from);
+        int j = from;
+        for (; j < bound; j += FS.length()) {
+            FloatVector xDiff = FloatVector.fromArray(FS, colDiff, j);
+            FloatVector xRest = one.sub(xDiff);
+            FloatVector both = xDiff.mul(yDiff);
+            // Gathers: top[colIndex[j]], top[colIndex[j] + 1], and the same on the row below
+            IntVector a = IntVector.fromArray(FIS, top, 0, colIndex, j);
+            IntVector b = IntVector.fromArray(FIS, top, 1, colIndex, j);
+            IntVector c = IntVector.fromArray(FIS, bottom, 0, colIndex, j);
+            IntVector d = IntVector.fromArray(FIS, bottom, 1, colIndex, j);
+
+            IntVector blue = bilinear(a, b, c, d, 0, xDiff, xRest, yDiff, yRest, both);
+            IntVector green = bilinear(a, b, c, d, 8, xDiff, xRest, yDiff, yRest, both);
+            IntVector red = bilinear(a, b, c, d, 16, xDiff, xRest, yDiff, yRest, both);
+            // Float lanes are twice the double lanes per vector: widen in parts
+            for (int part = 0; part < FS.length() / LANES; part++) {
+                DoubleVector r = (DoubleVector) red.convertShape(VectorOperators.I2D, DS, part);
+                DoubleVector g = (DoubleVector) green.convertShape(VectorOperators.I2D, DS, part);
+                DoubleVector bl = (DoubleVector) blue.convertShape(VectorOperators.I2D, DS, part);
+                DoubleVector luma = r.mul(LUMA_R).add(g.mul(LUMA_G)).add(bl.mul(LUMA_B));
+                bl.sub(luma).intoArray(out, j - from + part * LANES);
+            }
+        }
+        ScalarKernels.INSTANCE.resizeChromaRange(top, bottom, colIndex, colDiff, yDiff, from, to, out, j);
+    }
+
+    private static IntVector bilinear(IntVector a, IntVector b, IntVector c, IntVector d, int shift,
+                                      FloatVector xDiff, FloatVector xRest, float yDiff, float yRest, FloatVector both) {
+        // Same products and sums, in the same order, as ScalarKernels.bilinear
+        FloatVector value = floatChannel(a, shift).mul(xRest).mul(yRest)
+                .add(floatChannel(b, shift).mul(xDiff).mul(yRest))
+                .add(floatChannel(c, shift).mul(yDiff).mul(xRest))
+                .add(floatChannel(d, shift).mul(both));
+        return (IntVector) value.convert(VectorOperators.F2I, 0);
+    }
+
+    private static FloatVector floatChannel(IntVector rgb, int shift) {
+        IntVector c = shift == 0 ? rgb.and(0xFF) : rgb.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+        return (FloatVector) c.convert(VectorOperators.I2F, 0);
+    }
+
+    @Override
+    public void foldRow(double[] values, int w, double[] sums, int rowBase) {
+        for (int x0 = 0; x0 < w; x0 += TILE_SIZE) {
+            int len = Math.min(TILE_SIZE, w - x0);
+            int bound = DS.loopBound(len);
+            int k = 0;
+            for (; k < bound; k += LANES) {
+                DoubleVector.fromArray(DS, sums, rowBase + k)
+                        .add(DoubleVector.fromArray(DS, values, x0 + k))
+                        .intoArray(sums, rowBase + k);
+            }
+            for (; k < len; k++) {
+                sums[rowBase + k] += values[x0 + k];
+            }
+        }
+    }
+
+    private static DoubleVector channel(IntVector rgb, int shift) {
+        IntVector c = shift == 0 ? rgb.and(0xFF) : rgb.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+        return (DoubleVector) c.convertShape(VectorOperators.I2D, DS, 0);
+    }
+
+    private static IntVector clamp(DoubleVector value) {
+        // (int) (v + 0.5) then saturate to [0, 255], exactly as ScalarKernels.clamp
+        IntVector i = (IntVector) value.add(0.5).convertShape(VectorOperators.D2I, IS, 0);
+        return i.max(0).min(255);
+    }
+}
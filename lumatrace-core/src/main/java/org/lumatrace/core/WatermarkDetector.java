@@ -1,5 +1,17 @@
 package org.lumatrace.core;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 /*
  * Copyright (c) 2026 David Rivera Ruz.
  * Licensed under the GNU General Public License v3.0.
@@ -11,147 +23,619 @@ package org.lumatrace.core;
 public class WatermarkDetector {
 
     private static final int TILE_SIZE = 64;
-    private static final int PHASE_SEARCH_STEP = 1;
-    // El umbral ya está definido dentro de AnalysisVerdict, pero lo dejamos aquí por si acaso se usa en lógica interna
-    private static final double SIGMA_DETECTION_FLOOR = 4.0;
+
+    // Multi-scale synchronization probes, in evaluation order
+    private static final double[] NATIVE_SCALE = {1.0};
+    private static final double[] SECONDARY_SCALES = {0.75, 0.5, 1.25};
+    private static final double[] ALL_SCALES = {1.0, 0.75, 0.5, 1.25};
+    private static final double EARLY_EXIT_SIGMA = 15.0;
+
+    private final SignatureCache signatureCache;
+    private final ScaleSearch scaleSearch;
+    private final ProgressiveSampling progressive;
+    private final ForkJoinPool pool;
+
+    public WatermarkDetector() {
+        this(SignatureCache.shared());
+    }
+
+    public WatermarkDetector(SignatureCache signatureCache) {
+        this(signatureCache, null);
+    }
+
+    /**
+     * @param scaleSearch Coarse-to-fine search used by {@link #detect} after the native scale,
+     *                    or {@code null} for the fixed probes. Identification always uses the fixed probes.
+     */
+    public WatermarkDetector(SignatureCache signatureCache, ScaleSearch scaleSearch) {
+        this(signatureCache, scaleSearch, null);
+    }
+
+    /**
+     * @param progressive Sampled folding of each scale with early accept/reject in {@link #detect},
+     *                    or {@code null} to always fold whole images. An early accept reports the
+     *                    interim sigma, a lower bound of the full-fold score.
+     */
+    public WatermarkDetector(SignatureCache signatureCache, ScaleSearch scaleSearch, ProgressiveSampling progressive) {
+        this(signatureCache, scaleSearch, progressive, null);
+    }
+
+    /**
+     * @param pool Pool for intra-request parallelism, or {@code null} for the serial path: row bands
+     *             are folded into per-task accumulators and merged, and the scales of each pass are
+     *             transformed and correlated concurrently. Sigma matches the serial path up to
+     *             floating-point summation order. Meant for latency-bound, low-concurrency callers.
+     */
+    public WatermarkDetector(SignatureCache signatureCache, ScaleSearch scaleSearch, ProgressiveSampling progressive,
+                             ForkJoinPool pool) {
+        this.signatureCache = signatureCache;
+        this.scaleSearch = scaleSearch;
+        this.progressive = progressive;
+        this.pool = pool;
+    }
 
     /**
      * Executes forensic analysis on raw pixel data.
      * Returns the external DetectionReport.
      */
     public DetectionReport detect(int[] pixels, int width, int height, long masterKey, String userId, String contentId) {
-        long startTime = System.currentTimeMillis();
+        return detect(new IntArrayPixels(pixels, width, height), masterKey, userId, contentId);
+    }
+
+    /**
+     * Executes forensic analysis on a row-streamed image.
+     * Scales are resampled and folded on the fly; no resized copy of the image is materialized.
+     */
+    public DetectionReport detect(PixelSource source, long masterKey, String userId, String contentId) {
+        Object event = CoreEvents.active().beginDetect();
+        DetectionTimings.Recorder timings = new DetectionTimings.Recorder();
+        timings.rows = source.height();
+
+        long t0 = System.nanoTime();
+        long seed = KeyDerivation.deriveSeed(masterKey, userId, contentId);
+        double[][] signature = signatureCache.get(seed);
+        SpectralCorrelator.Spectrum signatureSpectrum = SpectralCorrelator.transform(signature);
+        timings.signatureNanos = System.nanoTime() - t0;
+        double[] scratchRe = new double[SpectralCorrelator.TILE_AREA];
+        double[] scratchIm = new double[SpectralCorrelator.TILE_AREA];
+
+        double[] best;
+        if (scaleSearch != null) {
+            best = detectAdaptive(source, signatureSpectrum, timings, scratchRe, scratchIm);
+        } else if (isProgressive(source)) {
+            best = detectProgressive(source, signatureSpectrum, timings, scratchRe, scratchIm);
+        } else {
+            best = detectFixed(source, signatureSpectrum, timings, scratchRe, scratchIm);
+        }
 
+        // El 'AnalysisVerdict' se calcula automáticamente dentro del Record.
+        DetectionReport report = new DetectionReport(best[0], best[1], timings.finish());
+        CoreEvents.active().commitDetect(event, source.width(), source.height(), report);
+        return report;
+    }
+
+    /**
+     * Tamper localization: sigma of every window of {@code grid}, folded at the native scale
+     * (windows are in source pixels, so resized copies localize poorly). The signature is
+     * derived and transformed once for the whole grid.
+     * Runs on the detector's pool, or serially on the calling thread when it was built without one.
+     */
+    public TamperMap localize(PixelSource source, long masterKey, String userId, String contentId, TamperGrid grid) {
         long seed = KeyDerivation.deriveSeed(masterKey, userId, contentId);
-        double[][] signature = new WatermarkEngine().generateSignature(seed);
+        SpectralCorrelator.Spectrum signatureSpectrum = SpectralCorrelator.transform(signatureCache.get(seed));
+        return TamperLocalizer.localize(source, signatureSpectrum, grid, pool);
+    }
+
+    public TamperMap localize(int[] pixels, int width, int height, long masterKey, String userId, String contentId, TamperGrid grid) {
+        return localize(new IntArrayPixels(pixels, width, height), masterKey, userId, contentId, grid);
+    }
 
+    /**
+     * Native scale, then the fixed probes {0.75, 0.5, 1.25}.
+     *
+     * @return {sigma, scale}
+     */
+    private double[] detectFixed(PixelSource source, SpectralCorrelator.Spectrum signatureSpectrum,
+                                        DetectionTimings.Recorder timings, double[] scratchRe, double[] scratchIm) {
         double bestZ = 0;
         double bestS = 1.0;
 
-        // Multi-scale synchronization scan
-        double[] targetScales = {1.0, 0.75, 0.5, 1.25};
+        ScalePasses passes = new ScalePasses(source, timings);
 
-        for (double s : targetScales) {
-            double z = analyzeScale(pixels, width, height, signature, s);
-            if (z > bestZ) {
-                bestZ = z;
-                bestS = s;
+        // Pass 1: native scale alone, so clean uploads keep the cheap SNR early exit
+        for (FoldedScale folded : passes.primary()) {
+            bestZ = evaluate(folded, signatureSpectrum, timings, scratchRe, scratchIm);
+        }
+
+        // Pass 2: every remaining scale folded together in a single pass over memory
+        if (bestZ <= EARLY_EXIT_SIGMA) {
+            List<FoldedScale> secondary = passes.secondary();
+            // In parallel every probe is correlated up front; the early exit below replays the serial order
+            double[] sigmas = pool != null ? evaluateAll(secondary, signatureSpectrum, timings, scratchRe, scratchIm) : null;
+            for (int i = 0; i < secondary.size(); i++) {
+                FoldedScale folded = secondary.get(i);
+                double z = sigmas != null ? sigmas[i] : evaluate(folded, signatureSpectrum, timings, scratchRe, scratchIm);
+                if (z > bestZ) {
+                    bestZ = z;
+                    bestS = folded.scale;
+                }
+                // Optimization: SNR early exit
+                if (bestZ > EARLY_EXIT_SIGMA) {
+                    timings.earlyExit = i < secondary.size() - 1;
+                    break;
+                }
             }
-            // Optimization: SNR early exit
-            if (bestZ > 15.0) break;
+        } else {
+            timings.earlyExit = true;
         }
+        return new double[]{bestZ, bestS};
+    }
 
-        long latency = System.currentTimeMillis() - startTime;
+    /**
+     * Fixed probes under {@link ProgressiveSampling}: the native scale is sampled first and the
+     * secondary probes only run when it is not accepted.
+     *
+     * @return {sigma, scale}
+     */
+    private double[] detectProgressive(PixelSource source, SpectralCorrelator.Spectrum signatureSpectrum,
+                                       DetectionTimings.Recorder timings, double[] scratchRe, double[] scratchIm) {
+        List<ScaleFolder> primary = fittingFolders(source, NATIVE_SCALE);
+        double[] z = foldProgressively(source, primary, signatureSpectrum, timings, scratchRe, scratchIm);
+        double bestZ = z.length > 0 ? z[0] : 0;
+        double bestS = 1.0;
+        if (progressive.accepts(bestZ) || bestZ > EARLY_EXIT_SIGMA) {
+            timings.earlyExit = true;
+            return new double[]{bestZ, bestS};
+        }
 
-        // CORRECCIÓN: Usamos el constructor de 3 argumentos (Sigma, Scale, Latency).
-        // El 'AnalysisVerdict' se calcula automáticamente dentro del Record.
-        return new DetectionReport(bestZ, bestS, latency);
+        List<ScaleFolder> secondary = fittingFolders(source, SECONDARY_SCALES);
+        z = foldProgressively(source, secondary, signatureSpectrum, timings, scratchRe, scratchIm);
+        for (int i = 0; i < z.length; i++) {
+            if (z[i] > bestZ) {
+                bestZ = z[i];
+                bestS = secondary.get(i).scale;
+            }
+        }
+        timings.earlyExit = progressive.accepts(bestZ);
+        return new double[]{bestZ, bestS};
     }
 
-    private double analyzeScale(int[] originalPixels, int w, int h, double[][] signature, double scale) {
-        int targetW = (int) (w * scale);
-        int targetH = (int) (h * scale);
+    /**
+     * Native scale, then the {@link ScaleSearch} pyramid. Sources that are expensive to re-read
+     * fold the native scale and the coarse grid in the same pass.
+     *
+     * @return {sigma, scale}
+     */
+    private double[] detectAdaptive(PixelSource source, SpectralCorrelator.Spectrum signatureSpectrum,
+                                    DetectionTimings.Recorder timings, double[] scratchRe, double[] scratchIm) {
+        ScaleSearch search = scaleSearch;
+        int width = source.width();
+        int height = source.height();
 
-        if (targetW < TILE_SIZE || targetH < TILE_SIZE) return 0;
+        List<ScaleFolder> coarseFolders = new ArrayList<>();
+        for (double s : search.coarseScales()) {
+            if (ScaleFolder.fits(width, height, s)) coarseFolders.add(new ScaleFolder(width, height, s, search.coarseWindow()));
+        }
+        boolean nativeFits = ScaleFolder.fits(width, height, 1.0);
+        double nativeZ = 0;
+        List<FoldedScale> coarse = null;
+        if (!source.isRereadCheap()) {
+            List<ScaleFolder> firstPass = new ArrayList<>();
+            if (nativeFits) firstPass.add(new ScaleFolder(width, height, 1.0));
+            firstPass.addAll(coarseFolders);
+            coarse = foldScales(source, firstPass, timings);
+            if (nativeFits) {
+                nativeZ = evaluate(coarse.get(0), signatureSpectrum, timings, scratchRe, scratchIm);
+                coarse = coarse.subList(1, coarse.size());
+            }
+        } else if (nativeFits) {
+            List<ScaleFolder> nativeFold = List.of(new ScaleFolder(width, height, 1.0));
+            nativeZ = foldProgressively(source, nativeFold, signatureSpectrum, timings, scratchRe, scratchIm)[0];
+        }
+        if (nativeZ > search.stopSigma() || (progressive != null && progressive.accepts(nativeZ))) {
+            timings.earlyExit = true;
+            return new double[]{nativeZ, 1.0};
+        }
 
-        // 1. Resize Layer (Pure Math Implementation)
-        int[] processedPixels;
-        if (scale == 1.0) {
-            processedPixels = originalPixels;
-        } else {
-            processedPixels = resizeBilinear(originalPixels, w, h, targetW, targetH);
+        // Coarse grid on small windows: wide peaks, ranked to pick the scales worth refining
+        if (coarse == null) coarse = foldScales(source, coarseFolders, timings);
+        int n = coarse.size();
+        double[] coarseZ = evaluateAll(coarse, signatureSpectrum, timings, scratchRe, scratchIm);
+        List<Integer> maxima = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if ((i == 0 || coarseZ[i] >= coarseZ[i - 1]) && (i == n - 1 || coarseZ[i] >= coarseZ[i + 1])) maxima.add(i);
+        }
+        maxima.sort(Comparator.comparingDouble((Integer i) -> coarseZ[i]).reversed());
+        double[] peaks = new double[Math.min(search.peaks(), maxima.size())];
+        double[] peakZ = new double[peaks.length];
+        for (int p = 0; p < peaks.length; p++) {
+            peaks[p] = coarse.get(maxima.get(p)).scale;
+            peakZ[p] = coarseZ[maxima.get(p)];
         }
 
-        double[][] folded = new double[TILE_SIZE][TILE_SIZE];
-        int[][] counts = new int[TILE_SIZE][TILE_SIZE];
+        // Pyramid: the window doubles and the bracket halves per level; every peak shares one pass
+        double step = search.coarseStep() / 2;
+        int window = search.coarseWindow();
+        boolean covered = false;
+        while (peaks.length > 0 && !covered && window < search.maxWindow() && max(peakZ) <= search.stopSigma()) {
+            window = Math.min(window * 2, search.maxWindow());
+            covered = true;
+            List<ScaleFolder> folders = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int p = 0; p < peaks.length; p++) {
+                for (double s : new double[]{peaks[p] / (1 + step), peaks[p], peaks[p] * (1 + step)}) {
+                    if (s < search.minScale() || s > search.maxScale() || !ScaleFolder.fits(width, height, s)) continue;
+                    ScaleFolder folder = new ScaleFolder(width, height, s, window);
+                    covered &= folder.targetW <= window && folder.targetH <= window;
+                    folders.add(folder);
+                    owners.add(p);
+                }
+            }
 
-        // 2. Signal Integration (Folding)
-        for (int y = 0; y < targetH; y++) {
-            for (int x = 0; x < targetW; x++) {
-                double signal = extractDifferentialChrominance(processedPixels[y * targetW + x]);
-                folded[x % TILE_SIZE][y % TILE_SIZE] += signal;
-                counts[x % TILE_SIZE][y % TILE_SIZE]++;
+            Arrays.fill(peakZ, 0);
+            List<FoldedScale> level = foldScales(source, folders, timings);
+            double[] levelZ = evaluateAll(level, signatureSpectrum, timings, scratchRe, scratchIm);
+            for (int f = 0; f < level.size(); f++) {
+                int p = owners.get(f);
+                double z = levelZ[f];
+                if (z > peakZ[p]) {
+                    peakZ[p] = z;
+                    peaks[p] = level.get(f).scale;
+                }
             }
+            step /= 2;
         }
+        timings.earlyExit = max(peakZ) > search.stopSigma() && !covered && window < search.maxWindow();
 
-        // Mean signal normalization
-        for (int y = 0; y < TILE_SIZE; y++) {
-            for (int x = 0; x < TILE_SIZE; x++) {
-                if (counts[x][y] > 0) folded[x][y] /= counts[x][y];
+        // Sigma of the largest window evaluated; the native fold wins ties
+        double bestZ = nativeZ;
+        double bestS = 1.0;
+        for (int p = 0; p < peaks.length; p++) {
+            if (peakZ[p] > bestZ) {
+                bestZ = peakZ[p];
+                bestS = peaks[p];
             }
         }
+        return new double[]{bestZ, bestS};
+    }
 
-        return maximizeCrossCorrelation(folded, signature, targetW, targetH);
+    private boolean isProgressive(PixelSource source) {
+        return progressive != null && source.isRereadCheap();
     }
 
-    private int[] resizeBilinear(int[] pixels, int w, int h, int w2, int h2) {
-        int[] newPixels = new int[w2 * h2];
-        int a, b, c, d, x, y, index;
-        float x_ratio = ((float) (w - 1)) / w2;
-        float y_ratio = ((float) (h - 1)) / h2;
-        float x_diff, y_diff, blue, red, green;
-        int offset = 0;
+    /**
+     * Folds {@code folders} stage by stage ({@link ProgressiveSampling#stages}), evaluating every
+     * folder after each stage. Rejected folders sit out later stages; an accepted one ends the
+     * group. Without progressive sampling this is one full fold and one evaluation per folder.
+     *
+     * @return Sigma of each folder at its last evaluated stage.
+     */
+    private double[] foldProgressively(PixelSource source, List<ScaleFolder> folders, SpectralCorrelator.Spectrum signatureSpectrum,
+                                       DetectionTimings.Recorder timings, double[] scratchRe, double[] scratchIm) {
+        int n = folders.size();
+        double[] z = new double[n];
+        if (!isProgressive(source)) {
+            return evaluateAll(foldScales(source, folders, timings), signatureSpectrum, timings, scratchRe, scratchIm);
+        }
 
-        for (int i = 0; i < h2; i++) {
-            for (int j = 0; j < w2; j++) {
-                x = (int) (x_ratio * j);
-                y = (int) (y_ratio * i);
-                x_diff = (x_ratio * j) - x;
-                y_diff = (y_ratio * i) - y;
-                index = (y * w + x);
-                a = pixels[index];
-                b = pixels[index + 1];
-                c = pixels[index + w];
-                d = pixels[index + w + 1];
+        boolean[] live = new boolean[n];
+        Arrays.fill(live, true);
+        for (boolean[] stage : progressive.stages()) {
+            List<ScaleFolder> pass = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (!live[i]) continue;
+                ScaleFolder folder = folders.get(i);
+                folder.selectBands(stage);
+                // Images under stride * 64 rows have empty phases
+                if (!folder.hasSelectedRows()) continue;
+                pass.add(folder);
+                owners.add(i);
+            }
+            if (pass.isEmpty()) continue;
 
-                blue = (a & 0xff) * (1 - x_diff) * (1 - y_diff) + (b & 0xff) * (x_diff) * (1 - y_diff) +
-                        (c & 0xff) * (y_diff) * (1 - x_diff) + (d & 0xff) * (x_diff * y_diff);
+            double[] passZ = evaluateAll(foldScales(source, pass, timings), signatureSpectrum, timings, scratchRe, scratchIm);
+            for (int f = 0; f < passZ.length; f++) {
+                int i = owners.get(f);
+                z[i] = passZ[f];
+                if (progressive.accepts(z[i])) return z;
+                if (progressive.rejects(z[i], pass.get(f).foldedFraction())) live[i] = false;
+            }
+        }
+        return z;
+    }
 
-                green = ((a >> 8) & 0xff) * (1 - x_diff) * (1 - y_diff) + ((b >> 8) & 0xff) * (x_diff) * (1 - y_diff) +
-                        ((c >> 8) & 0xff) * (y_diff) * (1 - x_diff) + ((d >> 8) & 0xff) * (x_diff * y_diff);
+    private static double evaluate(FoldedScale folded, SpectralCorrelator.Spectrum signatureSpectrum,
+                                   DetectionTimings.Recorder timings, double[] scratchRe, double[] scratchIm) {
+        long t0 = System.nanoTime();
+        double z = folded.evaluate(signatureSpectrum, scratchRe, scratchIm);
+        timings.scale(folded.scale, z, System.nanoTime() - t0);
+        return z;
+    }
 
-                red = ((a >> 16) & 0xff) * (1 - x_diff) * (1 - y_diff) + ((b >> 16) & 0xff) * (x_diff) * (1 - y_diff) +
-                        ((c >> 16) & 0xff) * (y_diff) * (1 - x_diff) + ((d >> 16) & 0xff) * (x_diff * y_diff);
+    /**
+     * Sigma of every fold, in order; concurrent on the pool when there is more than one.
+     */
+    private double[] evaluateAll(List<FoldedScale> folded, SpectralCorrelator.Spectrum signatureSpectrum,
+                                 DetectionTimings.Recorder timings, double[] scratchRe, double[] scratchIm) {
+        int n = folded.size();
+        double[] z = new double[n];
+        if (pool == null || n < 2) {
+            for (int i = 0; i < n; i++) z[i] = evaluate(folded.get(i), signatureSpectrum, timings, scratchRe, scratchIm);
+            return z;
+        }
 
-                newPixels[offset++] = 0xFF000000 | ((((int) red) << 16) & 0xff0000) | ((((int) green) << 8) & 0xff00) | ((int) blue);
+        long start = System.nanoTime();
+        long[] nanos = new long[n];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int index = i;
+            tasks.add(pool.submit(() -> {
+                long t0 = System.nanoTime();
+                z[index] = folded.get(index).evaluate(signatureSpectrum,
+                        new double[SpectralCorrelator.TILE_AREA], new double[SpectralCorrelator.TILE_AREA]);
+                nanos[index] = System.nanoTime() - t0;
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) task.join();
+        long wall = System.nanoTime() - start;
+
+        // Recorder is single-threaded: timings are added here, in evaluation order
+        long busy = 0;
+        for (int i = 0; i < n; i++) {
+            timings.scale(folded.get(i).scale, z[i], nanos[i]);
+            busy += nanos[i];
+        }
+        // The stage total stays wall-clock: overlapping per-scale times count once
+        timings.correlationNanos += wall - busy;
+        return z;
+    }
+
+    /**
+     * Detection statistic of a fold: peak correlation scaled by the square root of the tiles folded.
+     */
+    static double sigma(double maxCorr, double tiles) {
+        return maxCorr * Math.sqrt(tiles) * 10;
+    }
+
+    private static double max(double[] values) {
+        double max = 0;
+        for (double v : values) max = Math.max(max, v);
+        return max;
+    }
+
+    /**
+     * Identification among candidates: folds the image once per scale and scores every
+     * candidate signature against the shared folds. Per-candidate cost is one forward FFT
+     * of the signature plus one inverse FFT per scale evaluated.
+     * Each candidate gets the same sigma and scale that {@link #detect} would report for it with the fixed probes.
+     *
+     * @return Matches ranked by descending sigma.
+     */
+    public List<CandidateMatch> detectAny(int[] pixels, int width, int height, long masterKey, List<Candidate> candidates) {
+        return detectAny(new IntArrayPixels(pixels, width, height), masterKey, candidates);
+    }
+
+    public List<CandidateMatch> detectAny(PixelSource source, long masterKey, List<Candidate> candidates) {
+        int n = candidates.size();
+        SpectralCorrelator.Spectrum[] spectra = new SpectralCorrelator.Spectrum[n];
+        double[] bestZ = new double[n];
+        double[] bestS = new double[n];
+        Arrays.fill(bestS, 1.0);
+
+        // Large candidate sets would flush the shared LRU; read through it without inserting
+        boolean useCache = n <= signatureCache.capacity() / 2;
+        long[] seeds = deriveSeeds(masterKey, candidates);
+        for (int c = 0; c < n; c++) {
+            double[][] signature = useCache ? signatureCache.get(seeds[c]) : signatureCache.getOrGenerate(seeds[c]);
+            spectra[c] = SpectralCorrelator.transform(signature);
+        }
+
+        double[] scratchRe = new double[SpectralCorrelator.TILE_AREA];
+        double[] scratchIm = new double[SpectralCorrelator.TILE_AREA];
+
+        ScalePasses passes = new ScalePasses(source, null);
+        for (FoldedScale folded : passes.primary()) {
+            for (int c = 0; c < n; c++) {
+                bestZ[c] = folded.sigma(spectra[c], scratchRe, scratchIm);
             }
         }
-        return newPixels;
+
+        boolean pending = false;
+        for (int c = 0; c < n && !pending; c++) pending = bestZ[c] <= EARLY_EXIT_SIGMA;
+        if (pending) {
+            List<FoldedScale> secondary = passes.secondary();
+            for (int c = 0; c < n; c++) {
+                if (bestZ[c] > EARLY_EXIT_SIGMA) continue;
+                for (FoldedScale folded : secondary) {
+                    double z = folded.sigma(spectra[c], scratchRe, scratchIm);
+                    if (z > bestZ[c]) {
+                        bestZ[c] = z;
+                        bestS[c] = folded.scale;
+                    }
+                    if (bestZ[c] > EARLY_EXIT_SIGMA) break;
+                }
+            }
+        }
+
+        List<CandidateMatch> matches = new ArrayList<>(n);
+        for (int c = 0; c < n; c++) {
+            matches.add(new CandidateMatch(candidates.get(c), bestZ[c], bestS[c]));
+        }
+        matches.sort(Comparator.comparingDouble(CandidateMatch::confidenceSigma).reversed());
+        return matches;
+    }
+
+    /**
+     * Seeds for every candidate; consecutive candidates of the same user share one prefix hash.
+     */
+    private static long[] deriveSeeds(long masterKey, List<Candidate> candidates) {
+        int n = candidates.size();
+        long[] seeds = new long[n];
+        int start = 0;
+        while (start < n) {
+            String userId = candidates.get(start).userId();
+            int end = start + 1;
+            while (end < n && Objects.equals(candidates.get(end).userId(), userId)) end++;
+
+            String[] contentIds = new String[end - start];
+            for (int c = start; c < end; c++) contentIds[c - start] = candidates.get(c).contentId();
+            long[] run = KeyDerivation.deriveSeeds(masterKey, userId, contentIds);
+            System.arraycopy(run, 0, seeds, start, run.length);
+            start = end;
+        }
+        return seeds;
     }
 
-    private double extractDifferentialChrominance(int rgb) {
-        int r = (rgb >> 16) & 0xFF;
-        int g = (rgb >> 8) & 0xFF;
-        int b = rgb & 0xFF;
-        double luma = 0.2126 * r + 0.7152 * g + 0.0722 * b;
-        return (double) b - luma;
+    /**
+     * Blind identification: scans every registration in {@code bank} against the folded image.
+     * Scales follow the same order and early exit as {@link #detect}; each registration keeps
+     * its best sigma over the scales scanned.
+     *
+     * @return Up to {@code limit} matches ranked by descending sigma.
+     */
+    public List<BankMatch> identify(int[] pixels, int width, int height, SignatureBank bank, int limit) throws IOException {
+        return identify(new IntArrayPixels(pixels, width, height), bank, limit);
     }
 
-    private double maximizeCrossCorrelation(double[][] folded, double[][] signature, int w, int h) {
-        double maxCorr = 0;
-        for (int dy = 0; dy < TILE_SIZE; dy += PHASE_SEARCH_STEP) {
-            for (int dx = 0; dx < TILE_SIZE; dx += PHASE_SEARCH_STEP) {
-                maxCorr = Math.max(maxCorr, computePearsonCorrelation(folded, signature, dx, dy));
+    public List<BankMatch> identify(PixelSource source, SignatureBank bank, int limit) throws IOException {
+        Map<UUID, BankMatch> best = new HashMap<>();
+        ScalePasses passes = new ScalePasses(source, null);
+        double bestZ = scanBank(passes.primary(), bank, limit, best);
+        if (bestZ <= EARLY_EXIT_SIGMA) {
+            scanBank(passes.secondary(), bank, limit, best);
+        }
+
+        List<BankMatch> ranked = new ArrayList<>(best.values());
+        ranked.sort(Comparator.comparingDouble(BankMatch::confidenceSigma).reversed());
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+
+    private double scanBank(List<FoldedScale> scales, SignatureBank bank, int limit, Map<UUID, BankMatch> best) throws IOException {
+        double bestZ = 0;
+        for (FoldedScale folded : scales) {
+            for (SignatureBank.Hit hit : bank.scan(folded.tile, limit)) {
+                double z = folded.sigma(hit.correlation());
+                BankMatch current = best.get(hit.id());
+                if (current == null || z > current.confidenceSigma()) {
+                    best.put(hit.id(), new BankMatch(hit.id(), z, folded.scale));
+                }
+                bestZ = Math.max(bestZ, z);
             }
+            if (bestZ > EARLY_EXIT_SIGMA) break;
         }
-        double n = (w * h) / (double) (TILE_SIZE * TILE_SIZE);
-        return maxCorr * Math.sqrt(n) * 10;
+        return bestZ;
     }
 
-    private double computePearsonCorrelation(double[][] a, double[][] b, int dx, int dy) {
-        double dot = 0, sumA = 0, sumB = 0, sumA2 = 0, sumB2 = 0;
-        int n = TILE_SIZE * TILE_SIZE;
-        for (int y = 0; y < TILE_SIZE; y++) {
-            for (int x = 0; x < TILE_SIZE; x++) {
-                double va = a[x][y];
-                double vb = b[(x + dx) % TILE_SIZE][(y + dy) % TILE_SIZE];
-                dot += va * vb;
-                sumA += va; sumB += vb;
-                sumA2 += va * va; sumB2 += vb * vb;
+    /**
+     * Folds every fitting scale of {@code scales} in one pass and transforms the tiles.
+     */
+    private List<FoldedScale> foldScales(PixelSource source, double[] scales, DetectionTimings.Recorder timings) {
+        return foldScales(source, fittingFolders(source, scales), timings);
+    }
+
+    private static List<ScaleFolder> fittingFolders(PixelSource source, double[] scales) {
+        List<ScaleFolder> folders = new ArrayList<>();
+        for (double s : scales) {
+            if (ScaleFolder.fits(source.width(), source.height(), s)) folders.add(new ScaleFolder(source.width(), source.height(), s));
+        }
+        return folders;
+    }
+
+    /**
+     * Folds {@code folders} in one pass and transforms the tiles, in the same order.
+     */
+    private List<FoldedScale> foldScales(PixelSource source, List<ScaleFolder> folders, DetectionTimings.Recorder timings) {
+        long t0 = System.nanoTime();
+        long readNanos = ScaleFolder.foldAll(source, timings != null ? timings.rowsRead : null, pool,
+                folders.toArray(new ScaleFolder[0]));
+        long t1 = System.nanoTime();
+
+        List<FoldedScale> folded;
+        if (pool == null || folders.size() < 2) {
+            folded = new ArrayList<>(folders.size());
+            for (ScaleFolder folder : folders) folded.add(transform(folder));
+        } else {
+            List<ForkJoinTask<FoldedScale>> tasks = new ArrayList<>(folders.size());
+            for (ScaleFolder folder : folders) tasks.add(pool.submit(() -> transform(folder)));
+            folded = new ArrayList<>(folders.size());
+            for (ForkJoinTask<FoldedScale> task : tasks) folded.add(task.join());
+        }
+
+        if (timings != null) {
+            timings.readNanos += readNanos;
+            timings.foldNanos += t1 - t0 - readNanos;
+            timings.transformNanos += System.nanoTime() - t1;
+        }
+        return folded;
+    }
+
+    private static FoldedScale transform(ScaleFolder folder) {
+        // Mean signal normalization happens inside the folder
+        double[] tile = folder.meanTile();
+        return new FoldedScale(folder.scale, folder.foldedTiles(), tile, SpectralCorrelator.transform(tile));
+    }
+
+    /**
+     * Native scale first, remaining probes folded on demand. Sources that are expensive to
+     * re-read (streaming decoders) fold every probe in the first pass instead; evaluation
+     * order and early exit are unchanged, so the reported sigma and scale are identical.
+     */
+    private final class ScalePasses {
+        private final PixelSource source;
+        private final DetectionTimings.Recorder timings;
+        private final List<FoldedScale> primary = new ArrayList<>();
+        private List<FoldedScale> secondary;
+
+        /**
+         * @param timings Stage accumulator, or {@code null} when not instrumented.
+         */
+        ScalePasses(PixelSource source, DetectionTimings.Recorder timings) {
+            this.source = source;
+            this.timings = timings;
+            if (source.isRereadCheap()) {
+                primary.addAll(foldScales(source, NATIVE_SCALE, timings));
+            } else {
+                secondary = new ArrayList<>();
+                for (FoldedScale folded : foldScales(source, ALL_SCALES, timings)) {
+                    (folded.scale == 1.0 ? primary : secondary).add(folded);
+                }
             }
         }
-        double num = n * dot - sumA * sumB;
-        double den = Math.sqrt((n * sumA2 - sumA * sumA) * (n * sumB2 - sumB * sumB));
-        return (den == 0) ? 0 : num / den;
+
+        List<FoldedScale> primary() {
+            return primary;
+        }
+
+        List<FoldedScale> secondary() {
+            if (secondary == null) secondary = foldScales(source, SECONDARY_SCALES, timings);
+            return secondary;
+        }
+    }
+
+    /**
+     * Frequency-domain fold of one scale, reusable across any number of signatures.
+     */
+    private record FoldedScale(double scale, double tiles, double[] tile, SpectralCorrelator.Spectrum spectrum) {
+
+        double sigma(SpectralCorrelator.Spectrum signature, double[] scratchRe, double[] scratchIm) {
+            // Phase search over all 64x64 circular shifts in the frequency domain
+            return sigma(SpectralCorrelator.peakCorrelation(spectrum, signature, scratchRe, scratchIm));
+        }
+
+        /**
+         * {@link #sigma(SpectralCorrelator.Spectrum, double[], double[])} inside a scale event, on the calling thread.
+         */
+        double evaluate(SpectralCorrelator.Spectrum signature, double[] scratchRe, double[] scratchIm) {
+            Object event = CoreEvents.active().beginScale();
+            double z = sigma(signature, scratchRe, scratchIm);
+            CoreEvents.active().commitScale(event, scale, z);
+            return z;
+        }
+
+        double sigma(double maxCorr) {
+            // n = tiles folded (the window, for windowed folds)
+            return WatermarkDetector.sigma(maxCorr, tiles);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,10 @@
 package org.lumatrace.core;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /*
  * Copyright (c) 2026 David Rivera Ruz.
@@ -15,44 +19,59 @@ public class WatermarkEngine {
     public static final int TILE_SIZE = 64;
 
     // JND Thresholds
-    private static final double MIN_GAIN = 1.2;
-    private static final double MAX_GAIN = 10.0;
-    private static final double ENTROPY_NORMALIZATION = 65.0;
-
-    // Spectral Weighting
-    private static final double LF_WEIGHT = 0.85;
-    private static final double HF_WEIGHT = 0.15;
+    static final double MIN_GAIN = 1.2;
+    static final double MAX_GAIN = 10.0;
+    static final double ENTROPY_NORMALIZATION = 65.0;
 
     // Rec. 709 Luminance
-    private static final double LUMA_R = 0.2126;
-    private static final double LUMA_G = 0.7152;
-    private static final double LUMA_B = 0.0722;
+    static final double LUMA_R = 0.2126;
+    static final double LUMA_G = 0.7152;
+    static final double LUMA_B = 0.0722;
 
     // Injection Vectors
-    private static final double VEC_BLUE = 0.60;
-    private static final double VEC_RED = 0.25;
-    private static final double VEC_GREEN = 0.15;
+    static final double VEC_BLUE = 0.60;
+    static final double VEC_RED = 0.25;
+    static final double VEC_GREEN = 0.15;
+
+    // Parallel Banding (rows per leaf task)
+    private static final int BAND_HEIGHT = 64;
+
+    private final SignatureCache signatureCache;
+    private final ForkJoinPool pool;
+
+    public WatermarkEngine() {
+        this(SignatureCache.shared(), null);
+    }
+
+    public WatermarkEngine(SignatureCache signatureCache) {
+        this(signatureCache, null);
+    }
+
+    /**
+     * @param pool Pool used for parallel row-band embedding, or {@code null} for the serial path.
+     */
+    public WatermarkEngine(ForkJoinPool pool) {
+        this(SignatureCache.shared(), pool);
+    }
+
+    public WatermarkEngine(SignatureCache signatureCache, ForkJoinPool pool) {
+        this.signatureCache = signatureCache;
+        this.pool = pool;
+    }
 
     /**
      * Generates a deterministic high-entropy signature.
+     * Always returns a fresh array; embedding and detection go through the {@link SignatureCache}.
      */
     public double[][] generateSignature(long seed) {
-        Random rng = new Random(seed);
-        double[][] sig = new double[TILE_SIZE][TILE_SIZE];
-
-        for (int y = 0; y < TILE_SIZE; y++) {
-            for (int x = 0; x < TILE_SIZE; x++) {
-                double lf = new Random(seed + (x / 4) * 1000 + (y / 4)).nextGaussian();
-                double hf = rng.nextGaussian();
-                sig[x][y] = (LF_WEIGHT * lf) + (HF_WEIGHT * hf);
-            }
-        }
-        return sig;
+        return SignatureGenerator.generate(seed);
     }
 
     /**
      * Injects watermark into raw pixel data.
      * Universal method: Compatible with Java AWT (Server) and Android Bitmaps.
+     * Runs in parallel row bands when the engine was built with a {@link ForkJoinPool};
+     * the output is bit-identical to the serial path.
      *
      * @param pixels Array of pixels in ARGB format (0xAARRGGBB).
      * @param w Image width.
@@ -60,59 +79,245 @@ public class WatermarkEngine {
      * @return The modified pixel array (new instance).
      */
     public int[] embedWatermark(int[] pixels, int w, int h, long masterKey, String userId, String contentId) {
+        Object event = CoreEvents.active().beginEmbed();
         long seed = KeyDerivation.deriveSeed(masterKey, userId, contentId);
-        double[][] signature = generateSignature(seed);
+        double[][] signature = signatureCache.get(seed);
 
         int[] dst = new int[pixels.length];
 
-        // 1. Pre-calculate Luminance Plane (Optimization for performance)
-        double[] luma = new double[pixels.length];
-        for (int i = 0; i < pixels.length; i++) {
-            int rgb = pixels[i];
-            int r = (rgb >> 16) & 0xFF;
-            int g = (rgb >> 8) & 0xFF;
-            int b = rgb & 0xFF;
-            luma[i] = r * LUMA_R + g * LUMA_G + b * LUMA_B;
+        if (pool == null || h < 2 * BAND_HEIGHT) {
+            embedBand(pixels, 0, dst, 0, w, h, signature, 0, h);
+        } else {
+            pool.invoke(new BandTask(pixels, 0, dst, 0, w, h, signature, 0, h));
         }
+        CoreEvents.active().commitEmbed(event, w, h, false);
+        return dst;
+    }
+
+    /**
+     * Streaming variant: pulls row bands from {@code source} and pushes them to {@code sink}.
+     * Each window holds its rows plus one lookahead row for the vertical gradient, so peak
+     * memory depends on the width and the band count, never on the image height.
+     * Output is bit-identical to {@link #embedWatermark(int[], int, int, long, String, String)}.
+     */
+    public void embedWatermark(PixelSource source, PixelSink sink, long masterKey, String userId, String contentId) {
+        int w = source.width();
+        int h = source.height();
+        if (h == 0) return;
+
+        Object event = CoreEvents.active().beginEmbed();
+        long seed = KeyDerivation.deriveSeed(masterKey, userId, contentId);
+        double[][] signature = signatureCache.get(seed);
+
+        int window = BAND_HEIGHT * (pool == null ? 1 : pool.getParallelism());
+        int[] in = new int[(window + 1) * w];
+        int[] out = new int[window * w];
+
+        source.readRows(0, Math.min(window + 1, h), in, 0);
+        int y0 = 0;
+        while (y0 < h) {
+            int rows = Math.min(window, h - y0);
+
+            if (pool == null || rows < 2 * BAND_HEIGHT) {
+                embedBand(in, y0, out, y0, w, h, signature, y0, y0 + rows);
+            } else {
+                pool.invoke(new BandTask(in, y0, out, y0, w, h, signature, y0, y0 + rows));
+            }
+            sink.writeRows(y0, rows, out, 0);
+
+            y0 += rows;
+            if (y0 < h) {
+                // Lookahead row becomes the first row of the next window
+                System.arraycopy(in, rows * w, in, 0, w);
+                int next = Math.min(window, h - y0 - 1);
+                if (next > 0) source.readRows(y0 + 1, next, in, w);
+            }
+        }
+        CoreEvents.active().commitEmbed(event, w, h, true);
+    }
+
+    /**
+     * Perceptual gain of an image, computed once for {@link #embedWatermarks}.
+     * Streams {@code source} in bands with the same one-row lookahead as the streaming embed.
+     */
+    public GainMap gainMap(PixelSource source) {
+        int w = source.width();
+        int h = source.height();
+        byte[] levels = new byte[Math.multiplyExact(w, h)];
+        if (h == 0) return new GainMap(w, h, levels);
+
+        PixelKernels kernels = PixelKernels.active();
+        int[] in = new int[(BAND_HEIGHT + 1) * w];
+        double[] luma = new double[w];
+        double[] lumaBelow = new double[w];
+
+        source.readRows(0, Math.min(BAND_HEIGHT + 1, h), in, 0);
+        kernels.lumaRow(in, 0, w, luma);
+        int y0 = 0;
+        while (y0 < h) {
+            int rows = Math.min(BAND_HEIGHT, h - y0);
+            for (int r = 0; r < rows; r++) {
+                int y = y0 + r;
+                boolean hasBelow = y < h - 1;
+                if (hasBelow) kernels.lumaRow(in, (r + 1) * w, w, lumaBelow);
+                kernels.gainRow(luma, lumaBelow, hasBelow, w, levels, y * w);
+
+                double[] swap = luma;
+                luma = lumaBelow;
+                lumaBelow = swap;
+            }
 
-        // 2. Main Injection Loop
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                int i = y * w + x;
-
-                // Calculate Local Entropy (Edge Detection)
-                double entropy = 0;
-                if (x < w - 1 && y < h - 1) {
-                    double current = luma[i];
-                    entropy = Math.abs(current - luma[i + 1]) +       // Horizontal gradient
-                            Math.abs(current - luma[i + w]);        // Vertical gradient
+            y0 += rows;
+            if (y0 < h) {
+                System.arraycopy(in, rows * w, in, 0, w);
+                int next = Math.min(BAND_HEIGHT, h - y0 - 1);
+                if (next > 0) source.readRows(y0 + 1, next, in, w);
+            }
+        }
+        return new GainMap(w, h, levels);
+    }
+
+    public GainMap gainMap(int[] pixels, int w, int h) {
+        return gainMap(new IntArrayPixels(pixels, w, h));
+    }
+
+    /**
+     * One image, many recipients: streams one watermarked variant per recipient to its sink.
+     * Each band of {@code source} is read once; per variant only the signature is applied on
+     * top of the shared {@code gains}, so luminance and entropy are never recomputed.
+     * With a {@link ForkJoinPool}, recipients are split across the workers band by band; each
+     * sink still receives its rows in top-to-bottom order, from one task at a time.
+     * Output matches {@link #embedWatermark} within the {@link GainMap} tolerance.
+     */
+    public void embedWatermarks(PixelSource source, GainMap gains, long masterKey, List<Recipient> recipients) {
+        int w = source.width();
+        int h = source.height();
+        if (gains.width() != w || gains.height() != h) throw new IllegalArgumentException("Gain map does not match the image");
+        int n = recipients.size();
+        if (h == 0 || n == 0) return;
+
+        Object event = CoreEvents.active().beginEmbed();
+        // Large distributions would flush the shared LRU; read through it without inserting
+        boolean useCache = n <= signatureCache.capacity() / 2;
+        double[][][] signatures = new double[n][][];
+        for (int i = 0; i < n; i++) {
+            Recipient recipient = recipients.get(i);
+            long seed = KeyDerivation.deriveSeed(masterKey, recipient.userId(), recipient.contentId());
+            signatures[i] = useCache ? signatureCache.get(seed) : signatureCache.getOrGenerate(seed);
+        }
+
+        int workers = pool == null ? 1 : Math.min(pool.getParallelism(), n);
+        int[] in = new int[BAND_HEIGHT * w];
+        int[][] out = new int[workers][BAND_HEIGHT * w];
+        for (int y0 = 0; y0 < h; y0 += BAND_HEIGHT) {
+            int rows = Math.min(BAND_HEIGHT, h - y0);
+            source.readRows(y0, rows, in, 0);
+
+            if (workers == 1) {
+                embedVariants(in, out[0], w, y0, rows, gains, signatures, recipients, 0, n);
+            } else {
+                List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+                for (int c = 0; c < workers; c++) {
+                    int[] buffer = out[c];
+                    int band = y0;
+                    int from = c * n / workers;
+                    int to = (c + 1) * n / workers;
+                    tasks.add(pool.submit(() -> embedVariants(in, buffer, w, band, rows, gains, signatures, recipients, from, to)));
                 }
+                for (ForkJoinTask<?> task : tasks) task.join();
+            }
+        }
+        CoreEvents.active().commitEmbed(event, w, h, true);
+    }
 
-                // Adaptive Gain Calculation
-                double gain = MIN_GAIN + Math.min(1.0, entropy / ENTROPY_NORMALIZATION) * (MAX_GAIN - MIN_GAIN);
-                double signal = signature[x % TILE_SIZE][y % TILE_SIZE] * gain;
-
-                // Original Pixel Extraction
-                int rgb = pixels[i];
-                int a = (rgb >> 24) & 0xFF;
-                int r = (rgb >> 16) & 0xFF;
-                int g = (rgb >> 8) & 0xFF;
-                int b = rgb & 0xFF;
-
-                // Apply Signal
-                dst[i] = (a << 24) |
-                        (clamp(r + signal * VEC_RED) << 16) |
-                        (clamp(g + signal * VEC_GREEN) << 8) |
-                        clamp(b + signal * VEC_BLUE);
+    /**
+     * Applies recipients [from, to) to one band held at the start of {@code in}, reusing {@code out}.
+     */
+    private static void embedVariants(int[] in, int[] out, int w, int y0, int rows, GainMap gains,
+                                      double[][][] signatures, List<Recipient> recipients, int from, int to) {
+        PixelKernels kernels = PixelKernels.active();
+        double[] sigRow = new double[TILE_SIZE];
+        for (int i = from; i < to; i++) {
+            for (int r = 0; r < rows; r++) {
+                int y = y0 + r;
+                loadSignatureRow(signatures[i], y, sigRow);
+                kernels.embedRowWithGain(in, r * w, out, r * w, w, gains.levels, y * w, GainMap.GAINS, sigRow);
             }
+            recipients.get(i).sink().writeRows(y0, rows, out, 0);
         }
-        return dst;
     }
 
-    private int clamp(double value) {
-        int i = (int) (value + 0.5); // Fast rounding
-        if (i < 0) return 0;
-        if (i > 255) return 255;
-        return i;
+    /**
+     * Embeds rows [y0, y1). Luminance is computed one row ahead, so a band reads the
+     * first row of the next band (the vertical gradient overlap) but never writes it.
+     * Row y lives at offset {@code (y - srcRow0) * w} in {@code pixels} and
+     * {@code (y - dstRow0) * w} in {@code dst}, so the same kernel serves full planes and band buffers.
+     */
+    private void embedBand(int[] pixels, int srcRow0, int[] dst, int dstRow0, int w, int h,
+                           double[][] signature, int y0, int y1) {
+        if (y0 >= y1) return;
+        PixelKernels kernels = PixelKernels.active();
+        double[] luma = new double[w];
+        double[] lumaBelow = new double[w];
+        double[] sigRow = new double[TILE_SIZE];
+
+        kernels.lumaRow(pixels, (y0 - srcRow0) * w, w, luma);
+        for (int y = y0; y < y1; y++) {
+            boolean hasBelow = y < h - 1;
+            if (hasBelow) kernels.lumaRow(pixels, (y + 1 - srcRow0) * w, w, lumaBelow);
+
+            loadSignatureRow(signature, y, sigRow);
+            kernels.embedRow(pixels, (y - srcRow0) * w, dst, (y - dstRow0) * w, w, luma, lumaBelow, hasBelow, sigRow);
+
+            double[] swap = luma;
+            luma = lumaBelow;
+            lumaBelow = swap;
+        }
+    }
+
+    private static void loadSignatureRow(double[][] signature, int y, double[] sigRow) {
+        int ty = y % TILE_SIZE;
+        for (int x = 0; x < TILE_SIZE; x++) {
+            sigRow[x] = signature[x][ty];
+        }
+    }
+
+    /**
+     * Recursive row-band split. Bands never share output rows, so no synchronization is needed.
+     */
+    private final class BandTask extends RecursiveAction {
+        private final int[] pixels;
+        private final int srcRow0;
+        private final int[] dst;
+        private final int dstRow0;
+        private final int w;
+        private final int h;
+        private final double[][] signature;
+        private final int y0;
+        private final int y1;
+
+        BandTask(int[] pixels, int srcRow0, int[] dst, int dstRow0, int w, int h,
+                 double[][] signature, int y0, int y1) {
+            this.pixels = pixels;
+            this.srcRow0 = srcRow0;
+            this.dst = dst;
+            this.dstRow0 = dstRow0;
+            this.w = w;
+            this.h = h;
+            this.signature = signature;
+            this.y0 = y0;
+            this.y1 = y1;
+        }
+
+        @Override
+        protected void compute() {
+            if (y1 - y0 <= BAND_HEIGHT) {
+                embedBand(pixels, srcRow0, dst, dstRow0, w, h, signature, y0, y1);
+                return;
+            }
+            int mid = (y0 + y1) >>> 1;
+            invokeAll(new BandTask(pixels, srcRow0, dst, dstRow0, w, h, signature, y0, mid),
+                    new BandTask(pixels, srcRow0, dst, dstRow0, w, h, signature, mid, y1));
+        }
     }
-}
\ No newline at end of file
+}
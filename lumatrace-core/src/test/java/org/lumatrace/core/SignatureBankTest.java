@@ -0,0 +1,79 @@
+package org.lumatrace.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+class SignatureBankTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testScanMatchesSpectralCorrelator() throws Exception {
+        System.out.println("TEST: Cross-checking bank scan against the in-memory phase search...");
+
+        Random rand = new Random(3);
+        double[] query = new double[SpectralCorrelator.TILE_AREA];
+        for (int i = 0; i < query.length; i++) query[i] = rand.nextGaussian();
+
+        try (SignatureBank bank = SignatureBank.open(dir.resolve("bank.ltsb"))) {
+            for (long seed = 0; seed < 600; seed++) {
+                bank.append(new UUID(0, seed), seed);
+            }
+            List<SignatureBank.Hit> hits = bank.scan(query, 600);
+            assertEquals(600, hits.size());
+
+            SpectralCorrelator.Spectrum q = SpectralCorrelator.transform(query);
+            for (SignatureBank.Hit hit : hits) {
+                double expected = SpectralCorrelator.peakCorrelation(q,
+                        SpectralCorrelator.transform(SignatureGenerator.generate(hit.id().getLeastSignificantBits())));
+                assertEquals(expected, hit.correlation(), 1e-5, "Mismatch for seed " + hit.id());
+            }
+        }
+    }
+
+    @Test
+    void testBlindIdentificationAcrossReopen() throws Exception {
+        System.out.println("TEST: Blind identification against a persisted signature bank...");
+
+        int width = 640, height = 480;
+        long masterKey = 42L;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(9);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+
+        Path file = dir.resolve("registrations.ltsb");
+        UUID target = null;
+        try (SignatureBank bank = SignatureBank.open(file)) {
+            for (int i = 0; i < 300; i++) {
+                UUID id = new UUID(7, i);
+                bank.append(id, KeyDerivation.deriveSeed(masterKey, "user", id.toString()));
+                if (i == 211) target = id;
+            }
+        }
+
+        // Registro a medio escribir: debe descartarse al reabrir
+        Files.write(file, new byte[100], java.nio.file.StandardOpenOption.APPEND);
+
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, masterKey, "user", target.toString());
+        try (SignatureBank bank = SignatureBank.open(file)) {
+            assertEquals(300, bank.size());
+            List<BankMatch> ranked = new WatermarkDetector().identify(marked, width, height, bank, 3);
+
+            assertEquals(3, ranked.size());
+            assertEquals(target, ranked.get(0).registrationId(), "Embedded registration must rank first");
+            assertEquals(AnalysisVerdict.VERIFIED, ranked.get(0).status());
+
+            DetectionReport direct = new WatermarkDetector().detect(marked, width, height, masterKey, "user", target.toString());
+            assertEquals(direct.confidenceSigma(), ranked.get(0).confidenceSigma(), 1e-3);
+            System.out.println("   -> Best: " + ranked.get(0).confidenceSigma() + " | Runner-up: " + ranked.get(1).confidenceSigma());
+        }
+    }
+}
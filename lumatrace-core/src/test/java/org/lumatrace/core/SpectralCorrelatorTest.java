@@ -0,0 +1,67 @@
+package org.lumatrace.core;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class SpectralCorrelatorTest {
+
+    private static final int T = SpectralCorrelator.TILE_SIZE;
+
+    @Test
+    void testSpectralPeakMatchesBruteForceScan() {
+        System.out.println("TEST: Cross-checking FFT phase search against the spatial scan...");
+
+        double[][] signature = new WatermarkEngine().generateSignature(42L);
+        Random rand = new Random(7);
+
+        // Folded tile = signature shifted by (13, 41) buried in noise
+        double[][] folded = new double[T][T];
+        for (int y = 0; y < T; y++) {
+            for (int x = 0; x < T; x++) {
+                folded[x][y] = 0.3 * signature[(x + 13) % T][(y + 41) % T] + rand.nextGaussian();
+            }
+        }
+
+        double spectral = SpectralCorrelator.peakCorrelation(
+                SpectralCorrelator.transform(folded), SpectralCorrelator.transform(signature));
+        double direct = bruteForcePeak(folded, signature);
+
+        System.out.println("   -> Spectral: " + spectral + " | Direct: " + direct);
+        assertEquals(direct, spectral, 1e-9, "FFT peak must match the direct scan");
+        assertTrue(spectral > 0.2, "Shifted signature should be found");
+    }
+
+    @Test
+    void testFlatTileHasNoCorrelation() {
+        double[][] flat = new double[T][T];
+        double[][] signature = new WatermarkEngine().generateSignature(1L);
+        assertEquals(0.0, SpectralCorrelator.peakCorrelation(
+                SpectralCorrelator.transform(flat), SpectralCorrelator.transform(signature)));
+    }
+
+    // Referencia: búsqueda de fase espacial O(N^2) original
+    private static double bruteForcePeak(double[][] a, double[][] b) {
+        double maxCorr = 0;
+        int n = T * T;
+        for (int dy = 0; dy < T; dy++) {
+            for (int dx = 0; dx < T; dx++) {
+                double dot = 0, sumA = 0, sumB = 0, sumA2 = 0, sumB2 = 0;
+                for (int y = 0; y < T; y++) {
+                    for (int x = 0; x < T; x++) {
+                        double va = a[x][y];
+                        double vb = b[(x + dx) % T][(y + dy) % T];
+                        dot += va * vb;
+                        sumA += va; sumB += vb;
+                        sumA2 += va * va; sumB2 += vb * vb;
+                    }
+                }
+                double num = n * dot - sumA * sumB;
+                double den = Math.sqrt((n * sumA2 - sumA * sumA) * (n * sumB2 - sumB * sumB));
+                maxCorr = Math.max(maxCorr, den == 0 ? 0 : num / den);
+            }
+        }
+        return maxCorr;
+    }
+}
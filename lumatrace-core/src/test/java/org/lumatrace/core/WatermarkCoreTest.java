@@ -2,8 +2,31 @@ package org.lumatrace.core;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import org.lumatrace.awt.BufferedImagePixels;
+import org.lumatrace.awt.ImageReaderPixels;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 
 class WatermarkCoreTest {
 
@@ -88,4 +111,778 @@ class WatermarkCoreTest {
 
         System.out.println("TEST PASSED: Algorithm is robust.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSignatureGeneratorIsBitIdentical() {
+        System.out.println("TEST: Comparing signature generator against the legacy Random scheme...");
+
+        WatermarkEngine engine = new WatermarkEngine();
+        for (long seed : new long[]{0L, 1L, -1L, 8049473336066145901L, Long.MIN_VALUE}) {
+            double[][] expected = legacySignature(seed);
+            double[][] actual = engine.generateSignature(seed);
+            for (int x = 0; x < WatermarkEngine.TILE_SIZE; x++) {
+                assertArrayEquals(expected[x], actual[x], 0.0, "Signature mismatch for seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void testSignatureCacheEvictsLeastRecentlyUsed() {
+        SignatureCache cache = new SignatureCache(2);
+
+        double[][] first = cache.get(1L);
+        cache.get(2L);
+        assertSame(first, cache.get(1L), "Hit should return the cached tile");
+        cache.get(3L); // Expulsa la semilla 2 (menos usada recientemente)
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(3, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+
+        cache.get(2L);
+        assertEquals(4, cache.missCount(), "Evicted seed must be regenerated");
+
+        cache.getOrGenerate(99L);
+        assertEquals(5, cache.missCount(), "Uncached bulk lookups count as misses");
+        assertEquals(2, cache.size());
+    }
+
+    // Referencia: generador original con un Random por celda
+    private static double[][] legacySignature(long seed) {
+        Random rng = new Random(seed);
+        double[][] sig = new double[WatermarkEngine.TILE_SIZE][WatermarkEngine.TILE_SIZE];
+        for (int y = 0; y < WatermarkEngine.TILE_SIZE; y++) {
+            for (int x = 0; x < WatermarkEngine.TILE_SIZE; x++) {
+                double lf = new Random(seed + (x / 4) * 1000 + (y / 4)).nextGaussian();
+                double hf = rng.nextGaussian();
+                sig[x][y] = (0.85 * lf) + (0.15 * hf);
+            }
+        }
+        return sig;
+    }
+
+    @Test
+    void testParallelEmbeddingIsBitIdentical() {
+        System.out.println("TEST: Comparing parallel row-band embedding against the legacy serial loop...");
+
+        int width = 333;
+        int height = 517;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(11);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt();
+
+        int[] expected = legacyEmbed(pixels, width, height, new WatermarkEngine().generateSignature(
+                KeyDerivation.deriveSeed(77L, "u", "c")));
+
+        int[] serial = new WatermarkEngine().embedWatermark(pixels, width, height, 77L, "u", "c");
+        assertArrayEquals(expected, serial, "Serial banded path must match the legacy loop");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int[] parallel = new WatermarkEngine(pool).embedWatermark(pixels, width, height, 77L, "u", "c");
+            assertArrayEquals(expected, parallel, "Parallel path must be bit-identical");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testStreamingEmbeddingIsBitIdentical() {
+        System.out.println("TEST: Comparing band-streaming embedding against the in-memory path...");
+
+        int width = 257;
+        int height = 301;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(5);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt();
+
+        int[] expected = new WatermarkEngine().embedWatermark(pixels, width, height, 31L, "u", "c");
+
+        int[] streamed = new int[pixels.length];
+        new WatermarkEngine().embedWatermark(new IntArrayPixels(pixels, width, height),
+                new IntArrayPixels(streamed, width, height), 31L, "u", "c");
+        assertArrayEquals(expected, streamed, "Serial streaming must match");
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            int[] parallel = new int[pixels.length];
+            new WatermarkEngine(pool).embedWatermark(new IntArrayPixels(pixels, width, height),
+                    new IntArrayPixels(parallel, width, height), 31L, "u", "c");
+            assertArrayEquals(expected, parallel, "Parallel streaming must match");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testMultiRecipientEmbeddingMatchesSingleEmbeds() {
+        System.out.println("TEST: Embedding many recipients from one precomputed gain map...");
+
+        int width = 640, height = 480;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(31);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt();
+        IntArrayPixels source = new IntArrayPixels(pixels, width, height);
+
+        WatermarkEngine engine = new WatermarkEngine();
+        GainMap gains = engine.gainMap(source);
+        assertEquals((long) width * height, gains.sizeBytes());
+
+        String[] users = {"outlet-0", "outlet-1", "outlet-2", "outlet-3", "outlet-4"};
+        List<Recipient> recipients = new ArrayList<>();
+        int[][] variants = new int[users.length][pixels.length];
+        for (int i = 0; i < users.length; i++) {
+            recipients.add(new Recipient(users[i], "press-photo", new IntArrayPixels(variants[i], width, height)));
+        }
+        engine.embedWatermarks(source, gains, 12L, recipients);
+
+        WatermarkDetector detector = new WatermarkDetector();
+        long differing = 0;
+        for (int i = 0; i < users.length; i++) {
+            int[] expected = engine.embedWatermark(pixels, width, height, 12L, users[i], "press-photo");
+            for (int p = 0; p < pixels.length; p++) {
+                if (expected[p] == variants[i][p]) continue;
+                differing++;
+                // Ganancia cuantizada: como mucho un nivel por canal
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int delta = ((expected[p] >> shift) & 0xFF) - ((variants[i][p] >> shift) & 0xFF);
+                    assertTrue(Math.abs(delta) <= 1, "Channel off by more than one level");
+                }
+            }
+            assertEquals(AnalysisVerdict.VERIFIED, detector.detect(variants[i], width, height, 12L, users[i], "press-photo").status());
+        }
+        double fraction = differing / (double) (users.length * pixels.length);
+        System.out.println("   -> Pixels differing from single embeds: " + String.format("%.3f%%", fraction * 100));
+        assertTrue(fraction < 0.01);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            int[][] parallel = new int[users.length][pixels.length];
+            List<Recipient> sinks = new ArrayList<>();
+            for (int i = 0; i < users.length; i++) {
+                sinks.add(new Recipient(users[i], "press-photo", new IntArrayPixels(parallel[i], width, height)));
+            }
+            new WatermarkEngine(pool).embedWatermarks(source, gains, 12L, sinks);
+            for (int i = 0; i < users.length; i++) assertArrayEquals(variants[i], parallel[i], "Parallel variants must match");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testFusedFoldingMatchesLegacyResize() {
+        System.out.println("TEST: Comparing fused multi-scale folding against resize-then-fold...");
+
+        int width = 480;
+        int height = 360;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(3);
+        for (int i = 0; i < pixels.length; i++) {
+            int gray = 60 + rand.nextInt(120);
+            pixels[i] = 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+        }
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 5L, "u", "c");
+
+        double[] scales = {1.0, 0.75, 0.5, 1.25};
+        ScaleFolder[] folders = new ScaleFolder[scales.length];
+        for (int k = 0; k < scales.length; k++) folders[k] = new ScaleFolder(width, height, scales[k]);
+        ScaleFolder.foldAll(new IntArrayPixels(marked, width, height), folders);
+
+        for (int k = 0; k < scales.length; k++) {
+            double[] expected = legacyFold(marked, width, height, scales[k]);
+            double[] actual = folders[k].meanTile();
+            double maxDiff = 0;
+            for (int i = 0; i < expected.length; i++) maxDiff = Math.max(maxDiff, Math.abs(expected[i] - actual[i]));
+            System.out.println("   -> Scale " + scales[k] + " max cell deviation: " + maxDiff);
+            assertTrue(maxDiff < 1e-9, "Folded cells must match the legacy resize, truncation included");
+        }
+    }
+
+    // Referencia: redimensionado bilineal + plegado originales (tile row-major)
+    private static double[] legacyFold(int[] pixels, int w, int h, double scale) {
+        int w2 = (int) (w * scale);
+        int h2 = (int) (h * scale);
+        int[] src = pixels;
+        if (scale != 1.0) {
+            src = new int[w2 * h2];
+            float xRatio = ((float) (w - 1)) / w2;
+            float yRatio = ((float) (h - 1)) / h2;
+            int offset = 0;
+            for (int i = 0; i < h2; i++) {
+                for (int j = 0; j < w2; j++) {
+                    int x = (int) (xRatio * j);
+                    int y = (int) (yRatio * i);
+                    float xd = (xRatio * j) - x;
+                    float yd = (yRatio * i) - y;
+                    int index = y * w + x;
+                    int a = pixels[index], b = pixels[index + 1], c = pixels[index + w], d = pixels[index + w + 1];
+                    int[] out = new int[3];
+                    for (int ch = 0; ch < 3; ch++) {
+                        int shift = ch * 8;
+                        out[ch] = (int) (((a >> shift) & 0xff) * (1 - xd) * (1 - yd) + ((b >> shift) & 0xff) * xd * (1 - yd) +
+                                ((c >> shift) & 0xff) * yd * (1 - xd) + ((d >> shift) & 0xff) * (xd * yd));
+                    }
+                    src[offset++] = 0xFF000000 | (out[2] << 16) | (out[1] << 8) | out[0];
+                }
+            }
+        }
+        double[] sums = new double[64 * 64];
+        int[] counts = new int[64 * 64];
+        for (int y = 0; y < h2; y++) {
+            for (int x = 0; x < w2; x++) {
+                int rgb = src[y * w2 + x];
+                double luma = 0.2126 * ((rgb >> 16) & 0xFF) + 0.7152 * ((rgb >> 8) & 0xFF) + 0.0722 * (rgb & 0xFF);
+                int cell = (y % 64) * 64 + (x % 64);
+                sums[cell] += (rgb & 0xFF) - luma;
+                counts[cell]++;
+            }
+        }
+        for (int i = 0; i < sums.length; i++) sums[i] /= counts[i];
+        return sums;
+    }
+
+    @Test
+    void testVectorKernelsMatchScalarKernels() {
+        System.out.println("TEST: Cross-checking SIMD kernels against the scalar path...");
+
+        PixelKernels vector = PixelKernels.Holder.vectorOrNull();
+        assumeTrue(vector != null, "jdk.incubator.vector not resolved; scalar fallback only");
+        PixelKernels scalar = ScalarKernels.INSTANCE;
+
+        Random rand = new Random(17);
+        for (int w : new int[]{1, 7, 64, 129, 1001}) {
+            int[] argb = new int[2 * w];
+            for (int i = 0; i < argb.length; i++) argb[i] = rand.nextInt();
+            double[] sigRow = new double[WatermarkEngine.TILE_SIZE];
+            for (int i = 0; i < sigRow.length; i++) sigRow[i] = rand.nextGaussian() * 3;
+
+            double[] lumaS = new double[w], lumaV = new double[w];
+            double[] belowS = new double[w], belowV = new double[w];
+            scalar.lumaRow(argb, 0, w, lumaS);
+            vector.lumaRow(argb, 0, w, lumaV);
+            scalar.lumaRow(argb, w, w, belowS);
+            vector.lumaRow(argb, w, w, belowV);
+            assertArrayEquals(lumaS, lumaV, 0.0, "Luma mismatch at w=" + w);
+
+            double[] chromaS = new double[w], chromaV = new double[w];
+            scalar.chromaRow(argb, 0, w, chromaS);
+            vector.chromaRow(argb, 0, w, chromaV);
+            assertArrayEquals(chromaS, chromaV, 0.0, "Chroma mismatch at w=" + w);
+
+            for (boolean hasBelow : new boolean[]{true, false}) {
+                int[] dstS = new int[w], dstV = new int[w];
+                scalar.embedRow(argb, 0, dstS, 0, w, lumaS, belowS, hasBelow, sigRow);
+                vector.embedRow(argb, 0, dstV, 0, w, lumaV, belowV, hasBelow, sigRow);
+                assertArrayEquals(dstS, dstV, "Embed mismatch at w=" + w);
+            }
+
+            double[] sumsS = new double[WatermarkEngine.TILE_SIZE * 2], sumsV = new double[WatermarkEngine.TILE_SIZE * 2];
+            scalar.foldRow(chromaS, w, sumsS, WatermarkEngine.TILE_SIZE);
+            vector.foldRow(chromaV, w, sumsV, WatermarkEngine.TILE_SIZE);
+            assertArrayEquals(sumsS, sumsV, 0.0, "Fold mismatch at w=" + w);
+
+            if (w < 2) continue;
+            int targetW = w * 5 / 4;
+            float xRatio = ((float) (w - 1)) / targetW;
+            int[] colIndex = new int[targetW];
+            float[] colDiff = new float[targetW];
+            for (int j = 0; j < targetW; j++) {
+                colIndex[j] = Math.min((int) (xRatio * j), w - 2);
+                colDiff[j] = (xRatio * j) - colIndex[j];
+            }
+            int[] top = Arrays.copyOfRange(argb, 0, w);
+            int[] bottom = Arrays.copyOfRange(argb, w, 2 * w);
+            int from = targetW / 5;
+            double[] resizedS = new double[targetW - from], resizedV = new double[targetW - from];
+            scalar.resizeChromaRow(top, bottom, colIndex, colDiff, 0.37f, from, targetW, resizedS);
+            vector.resizeChromaRow(top, bottom, colIndex, colDiff, 0.37f, from, targetW, resizedV);
+            assertArrayEquals(resizedS, resizedV, 0.0, "Resize mismatch at w=" + w);
+        }
+    }
+
+    @Test
+    void testDetectAnyRanksTheEmbeddedCandidateFirst() {
+        System.out.println("TEST: Identifying the embedded photo among 20 candidates...");
+
+        int width = 640, height = 480;
+        long masterKey = 99L;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(5);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < 20; i++) candidates.add(new Candidate("user", "photo-" + i));
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, masterKey, "user", "photo-13");
+
+        WatermarkDetector detector = new WatermarkDetector(new SignatureCache(4));
+        List<CandidateMatch> ranked = detector.detectAny(marked, width, height, masterKey, candidates);
+
+        assertEquals(20, ranked.size());
+        assertEquals("photo-13", ranked.get(0).candidate().contentId(), "Embedded candidate must rank first");
+        for (int i = 1; i < ranked.size(); i++) {
+            assertTrue(ranked.get(i - 1).confidenceSigma() >= ranked.get(i).confidenceSigma(), "Ranking must be descending");
+        }
+
+        // Each score must equal what a dedicated detect() call reports
+        for (CandidateMatch match : List.of(ranked.get(0), ranked.get(7))) {
+            DetectionReport single = detector.detect(marked, width, height, masterKey, "user", match.candidate().contentId());
+            assertEquals(single.confidenceSigma(), match.confidenceSigma(), 1e-9);
+            assertEquals(single.estimatedScale(), match.estimatedScale());
+        }
+        System.out.println("   -> Best: " + ranked.get(0).confidenceSigma() + " | Runner-up: " + ranked.get(1).confidenceSigma());
+    }
+
+    @Test
+    void testDecoderBackedDetectionMatchesInMemory() throws Exception {
+        System.out.println("TEST: Detecting through ImageReader stripes (BMP) and single decode (PNG)...");
+
+        int width = 700, height = 610;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(21);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 5L, "u", "c");
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, width, height, marked, 0, width);
+
+        WatermarkDetector detector = new WatermarkDetector();
+        for (String user : new String[]{"u", "someone-else"}) {
+            DetectionReport expected = detector.detect(marked, width, height, 5L, user, "c");
+            for (String format : new String[]{"bmp", "png"}) {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                ImageIO.write(img, format, encoded);
+                try (ImageReaderPixels source = ImageReaderPixels.open(
+                        ImageIO.createImageInputStream(new ByteArrayInputStream(encoded.toByteArray())))) {
+                    assertEquals(format.equals("png"), source.isRereadCheap());
+                    DetectionReport streamed = detector.detect(source, 5L, user, "c");
+                    assertEquals(expected.confidenceSigma(), streamed.confidenceSigma(), 1e-9, format + " sigma");
+                    assertEquals(expected.estimatedScale(), streamed.estimatedScale(), format + " scale");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testInterruptedDetectionIsCancelled() throws Exception {
+        System.out.println("TEST: Cancelling in-memory and decoder-backed detection through the interrupt...");
+
+        int width = 512, height = 384;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(8);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, width, height, pixels, 0, width);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", png);
+
+        WatermarkDetector detector = new WatermarkDetector();
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> detector.detect(pixels, width, height, 5L, "u", "c"));
+            try (ImageReaderPixels source = ImageReaderPixels.open(
+                    ImageIO.createImageInputStream(new ByteArrayInputStream(png.toByteArray())))) {
+                assertThrows(CancellationException.class, () -> detector.detect(source, 5L, "u", "c"));
+            }
+            assertTrue(Thread.currentThread().isInterrupted(), "Interrupt status must be preserved");
+        } finally {
+            Thread.interrupted();
+        }
+        assertNotNull(detector.detect(pixels, width, height, 5L, "u", "c"), "Detection works again once cleared");
+    }
+
+    // Referencia: bucle de inyección original con plano de luminancia completo
+    private static int[] legacyEmbed(int[] pixels, int w, int h, double[][] signature) {
+        int[] dst = new int[pixels.length];
+        double[] luma = new double[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int rgb = pixels[i];
+            luma[i] = ((rgb >> 16) & 0xFF) * 0.2126 + ((rgb >> 8) & 0xFF) * 0.7152 + (rgb & 0xFF) * 0.0722;
+        }
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int i = y * w + x;
+                double entropy = 0;
+                if (x < w - 1 && y < h - 1) {
+                    entropy = Math.abs(luma[i] - luma[i + 1]) + Math.abs(luma[i] - luma[i + w]);
+                }
+                double gain = 1.2 + Math.min(1.0, entropy / 65.0) * (10.0 - 1.2);
+                double signal = signature[x % 64][y % 64] * gain;
+                int rgb = pixels[i];
+                dst[i] = (((rgb >> 24) & 0xFF) << 24) |
+                        (legacyClamp(((rgb >> 16) & 0xFF) + signal * 0.25) << 16) |
+                        (legacyClamp(((rgb >> 8) & 0xFF) + signal * 0.15) << 8) |
+                        legacyClamp((rgb & 0xFF) + signal * 0.60);
+            }
+        }
+        return dst;
+    }
+
+    private static int legacyClamp(double value) {
+        int i = (int) (value + 0.5);
+        return Math.max(0, Math.min(255, i));
+    }
+
+    @Test
+    void testDirectRasterAdaptersMatchGetRgb() {
+        System.out.println("TEST: Reading/writing rasters in place vs getRGB/setRGB...");
+
+        int width = 97, height = 41;
+        Random rand = new Random(33);
+        int[] argb = new int[width * height];
+        for (int i = 0; i < argb.length; i++) argb[i] = rand.nextInt();
+
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+                BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_BGR};
+        for (int type : types) {
+            BufferedImage parent = new BufferedImage(width + 10, height + 6, type);
+            // Sub-image: the adapter must honour the raster translation
+            BufferedImage img = parent.getSubimage(7, 3, width, height);
+            BufferedImagePixels pixels = new BufferedImagePixels(img);
+            assertEquals(type != BufferedImage.TYPE_INT_BGR, pixels.isDirect(), "Direct path for type " + type);
+
+            pixels.writeRows(0, height, argb, 0);
+            assertArrayEquals(img.getRGB(0, 0, width, height, null, 0, width),
+                    readAll(pixels, width, height), "Read-back for type " + type);
+
+            BufferedImage reference = new BufferedImage(width, height, type);
+            reference.setRGB(0, 0, width, height, argb, 0, width);
+            assertArrayEquals(reference.getRGB(0, 0, width, height, null, 0, width),
+                    img.getRGB(0, 0, width, height, null, 0, width), "Write for type " + type);
+            assertEquals(0, parent.getRGB(6, 3) & 0xFFFFFF, "Write leaked outside sub-image for type " + type);
+        }
+
+        // Plain byte[] BGR buffer, no AWT involved
+        byte[] bgr = new byte[width * height * 3];
+        ByteArrayPixels.bgr(bgr, width, height).writeRows(0, height, argb, 0);
+        int[] back = readAll(ByteArrayPixels.bgr(bgr, width, height), width, height);
+        for (int i = 0; i < argb.length; i++) assertEquals(argb[i] | 0xFF000000, back[i]);
+    }
+
+    @Test
+    void testBulkSeedDerivationMatchesLegacyConcatenation() throws Exception {
+        System.out.println("TEST: Comparing bulk seed derivation against the concatenated-string hash...");
+
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        String[] users = {"user", "", "usuario-ñ", "😀\ud800", null};
+        String[] contentIds = {UUID.randomUUID().toString(), "", "contenido-漢字", "x".repeat(200), null, "\udc00lone"};
+        for (long masterKey : new long[]{0L, -1L, Long.MIN_VALUE, 1234567890123456789L}) {
+            for (String user : users) {
+                long[] bulk = KeyDerivation.deriveSeeds(masterKey, user, contentIds);
+                for (int i = 0; i < contentIds.length; i++) {
+                    byte[] hash = sha.digest((masterKey + ":" + user + ":" + contentIds[i]).getBytes(StandardCharsets.UTF_8));
+                    long legacy = ByteBuffer.wrap(hash).getLong();
+                    assertEquals(legacy, KeyDerivation.deriveSeed(masterKey, user, contentIds[i]), "single " + i);
+                    assertEquals(legacy, bulk[i], "bulk " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDetectionReportCarriesStageTimings() {
+        System.out.println("TEST: Checking per-stage detection timings...");
+
+        int width = 512, height = 512;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(5);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 8L, "u", "c");
+
+        WatermarkDetector detector = new WatermarkDetector();
+        for (String user : new String[]{"u", "someone-else"}) {
+            DetectionReport report = detector.detect(marked, width, height, 8L, user, "c");
+            DetectionTimings t = report.timings();
+
+            assertFalse(t.scales().isEmpty());
+            assertEquals(1.0, t.scales().get(0).scale(), "Native scale is evaluated first");
+            long stages = t.signatureNanos() + t.readNanos() + t.foldNanos() + t.transformNanos() + t.correlationNanos();
+            assertTrue(stages <= t.totalNanos(), "Stages cannot exceed the total");
+            assertEquals(t.latencyMs(), report.latencyMs());
+            // Sin early exit se evalúan las cuatro escalas; el sigma reportado es el máximo
+            if (!t.earlyExit()) assertEquals(4, t.scales().size());
+            double best = t.scales().stream().mapToDouble(DetectionTimings.ScaleTiming::sigma).max().orElseThrow();
+            assertEquals(report.confidenceSigma(), best, 1e-12);
+            System.out.println("   -> " + user + ": " + t);
+        }
+    }
+
+    @Test
+    void testAdaptiveScaleSearchFindsOffGridResize() {
+        System.out.println("TEST: Adaptive scale search on a 0.6x resize...");
+
+        int width = 640, height = 480;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(3);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 1L, "u", "c");
+
+        // Reescalado bilineal 0.6x: queda entre las sondas fijas (se detecta a 1/0.6 = 1.667x)
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, width, height, marked, 0, width);
+        int w = (int) (width * 0.6), h = (int) (height * 0.6);
+        BufferedImage resized = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = resized.createGraphics();
+        g.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION, java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(img, 0, 0, w, h, null);
+        g.dispose();
+        int[] attacked = resized.getRGB(0, 0, w, h, null, 0, w);
+
+        DetectionReport fixed = new WatermarkDetector().detect(attacked, w, h, 1L, "u", "c");
+        WatermarkDetector adaptive = new WatermarkDetector(SignatureCache.shared(), ScaleSearch.DEFAULT);
+        DetectionReport report = adaptive.detect(attacked, w, h, 1L, "u", "c");
+        DetectionReport wrongKey = adaptive.detect(attacked, w, h, 1L, "u", "other");
+        System.out.println("   -> Fixed: " + fixed);
+        System.out.println("   -> Adaptive: " + report);
+
+        assertEquals(1 / 0.6, report.estimatedScale(), 0.03, "Scale should be recovered from the continuous range");
+        assertTrue(report.confidenceSigma() > fixed.confidenceSigma(), "Search should beat the fixed probes");
+        assertTrue(report.confidenceSigma() > 2 * wrongKey.confidenceSigma(), "Wrong key must stay well below");
+
+        // Streaming sources fold the native scale and the coarse grid in one pass: same result
+        DetectionReport streamed = adaptive.detect(new SinglePassPixels(new IntArrayPixels(attacked, w, h)), 1L, "u", "c");
+        assertEquals(report.confidenceSigma(), streamed.confidenceSigma(), 1e-9);
+        assertEquals(report.estimatedScale(), streamed.estimatedScale(), 1e-12);
+    }
+
+    @Test
+    void testProgressiveDetectionStopsOnDecisiveSamples() {
+        System.out.println("TEST: Progressive sampled detection...");
+
+        int width = 1024, height = 1024;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(21);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 9L, "u", "c");
+
+        WatermarkDetector full = new WatermarkDetector();
+        WatermarkDetector progressive = new WatermarkDetector(SignatureCache.shared(), null, ProgressiveSampling.DEFAULT);
+        DetectionReport reference = full.detect(marked, width, height, 9L, "u", "c");
+        DetectionReport report = progressive.detect(marked, width, height, 9L, "u", "c");
+        DetectionReport wrongKey = progressive.detect(marked, width, height, 9L, "u", "other");
+        System.out.println("   -> Full: " + reference);
+        System.out.println("   -> Progressive: " + report);
+        System.out.println("   -> Wrong key: " + wrongKey);
+
+        assertEquals(1.0, reference.timings().coverage(), 1e-12);
+        assertEquals(AnalysisVerdict.VERIFIED, report.status());
+        assertTrue(report.timings().coverage() < 1.0, "A strong mark should be accepted on a sample");
+        assertTrue(report.confidenceSigma() >= ProgressiveSampling.DEFAULT.acceptSigma());
+        // El veredicto no cambia respecto al plegado completo, también con la clave equivocada
+        DetectionReport whole = full.detect(marked, width, height, 9L, "u", "other");
+        assertEquals(whole.status(), wrongKey.status());
+        assertTrue(wrongKey.confidenceSigma() <= whole.confidenceSigma() + 1e-9);
+
+        // Sin decisión posible, las etapas suman exactamente el plegado completo
+        WatermarkDetector undecided = new WatermarkDetector(SignatureCache.shared(), null,
+                new ProgressiveSampling(8, Double.MAX_VALUE, 0));
+        DetectionReport staged = undecided.detect(marked, width, height, 9L, "u", "other");
+        assertEquals(whole.confidenceSigma(), staged.confidenceSigma(), 1e-9);
+        assertEquals(whole.estimatedScale(), staged.estimatedScale(), 1e-12);
+        assertEquals(1.0, staged.timings().coverage(), 1e-12);
+    }
+
+    @Test
+    void testParallelDetectionMatchesSerial() throws Exception {
+        System.out.println("TEST: Comparing parallel detection (row bands + concurrent scales) against the serial path...");
+
+        int width = 900, height = 700;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(23);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 4L, "u", "c");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ScaleSearch[] searches = {null, ScaleSearch.DEFAULT};
+            ProgressiveSampling[] samplings = {null, ProgressiveSampling.DEFAULT};
+            for (ScaleSearch search : searches) {
+                for (ProgressiveSampling sampling : samplings) {
+                    WatermarkDetector serial = new WatermarkDetector(SignatureCache.shared(), search, sampling);
+                    WatermarkDetector parallel = new WatermarkDetector(SignatureCache.shared(), search, sampling, pool);
+                    for (String content : new String[]{"c", "other"}) {
+                        DetectionReport expected = serial.detect(marked, width, height, 4L, "u", content);
+                        DetectionReport actual = parallel.detect(marked, width, height, 4L, "u", content);
+
+                        // Solo cambia el orden de las sumas entre bandas
+                        assertEquals(expected.confidenceSigma(), actual.confidenceSigma(), 1e-9);
+                        assertEquals(expected.estimatedScale(), actual.estimatedScale(), 1e-12);
+                        assertEquals(expected.timings().scales().size(), actual.timings().scales().size());
+                        assertEquals(expected.timings().coverage(), actual.timings().coverage(), 1e-12);
+
+                        DetectionTimings t = actual.timings();
+                        long stages = t.signatureNanos() + t.readNanos() + t.foldNanos() + t.transformNanos() + t.correlationNanos();
+                        assertTrue(stages <= t.totalNanos(), "Parallel stages are wall-clock too");
+                    }
+                }
+            }
+
+            // Las fuentes de una sola pasada no se leen en paralelo
+            DetectionReport streamed = new WatermarkDetector(SignatureCache.shared(), null, null, pool)
+                    .detect(new SinglePassPixels(new IntArrayPixels(marked, width, height)), 4L, "u", "c");
+            DetectionReport reference = new WatermarkDetector().detect(marked, width, height, 4L, "u", "c");
+            assertEquals(reference.confidenceSigma(), streamed.confidenceSigma(), 1e-9);
+
+            // PNG: una sola decodificación compartida por las bandas concurrentes
+            BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            img.setRGB(0, 0, width, height, marked, 0, width);
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(img, "png", png);
+            try (ImageReaderPixels decoded = ImageReaderPixels.open(
+                    ImageIO.createImageInputStream(new ByteArrayInputStream(png.toByteArray())))) {
+                DetectionReport concurrent = new WatermarkDetector(SignatureCache.shared(), null, null, pool)
+                        .detect(decoded, 4L, "u", "c");
+                assertEquals(reference.confidenceSigma(), concurrent.confidenceSigma(), 1e-9);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testTamperMapLocalizesPastedRegion() {
+        System.out.println("TEST: Localizing a pasted region with the tamper heatmap...");
+
+        int width = 1024, height = 768;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(29);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 6L, "u", "c");
+
+        // Región de 384x384 sin marca pegada en (512, 256)
+        int[] tampered = marked.clone();
+        for (int y = 256; y < 640; y++) System.arraycopy(pixels, y * width + 512, tampered, y * width + 512, 384);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            WatermarkDetector detector = new WatermarkDetector(SignatureCache.shared(), null, null, pool);
+            TamperMap map = detector.localize(tampered, width, height, 6L, "u", "c", TamperGrid.DEFAULT);
+            assertEquals(7, map.columns());
+            assertEquals(5, map.rows());
+
+            // Ventana (640, 384) dentro de la región pegada; (0, 0) intacta
+            double inside = map.sigma(5, 3);
+            double outside = map.sigma(0, 0);
+            System.out.println("   -> Inside: " + inside + " | Outside: " + outside);
+            assertTrue(outside > AnalysisVerdict.VERIFIED_SIGMA);
+            assertTrue(inside < AnalysisVerdict.MARGINAL_SIGMA);
+
+            // Un solo bloque del tamaño de la imagen reproduce el plegado nativo de detect
+            TamperMap whole = detector.localize(tampered, width, height, 6L, "u", "c", new TamperGrid(1024, 1024));
+            DetectionReport report = new WatermarkDetector().detect(tampered, width, height, 6L, "u", "c");
+            assertEquals(1, whole.sigmas().length);
+            assertEquals(report.timings().scales().get(0).sigma(), whole.sigma(0, 0), 1e-9);
+
+            // Fuentes de una sola pasada: bloques en serie, mismo mapa
+            TamperMap streamed = detector.localize(new SinglePassPixels(new IntArrayPixels(tampered, width, height)),
+                    6L, "u", "c", TamperGrid.DEFAULT);
+            assertArrayEquals(map.sigmas(), streamed.sigmas(), 1e-12);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testPoolLessLocalizationStaysOnCallingThread() {
+        System.out.println("TEST: Localizing without a pool never touches the common pool...");
+
+        int width = 768, height = 512;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(31);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 6L, "u", "c");
+
+        Thread caller = Thread.currentThread();
+        List<Thread> readers = new ArrayList<>();
+        PixelSource recording = new PixelSource() {
+            @Override public int width() { return width; }
+            @Override public int height() { return height; }
+            @Override public void readRows(int y, int rows, int[] dst, int offset) {
+                synchronized (readers) { readers.add(Thread.currentThread()); }
+                System.arraycopy(marked, y * width, dst, offset, rows * width);
+            }
+        };
+
+        ForkJoinPool common = ForkJoinPool.commonPool();
+        long stealsBefore = common.getStealCount();
+        TamperMap serial = new WatermarkDetector().localize(recording, 6L, "u", "c", TamperGrid.DEFAULT);
+        assertEquals(stealsBefore, common.getStealCount());
+        assertEquals(0, common.getQueuedSubmissionCount());
+        assertFalse(readers.isEmpty());
+        assertTrue(readers.stream().allMatch(t -> t == caller));
+
+        // Mismo mapa que con pool
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            WatermarkDetector pooled = new WatermarkDetector(SignatureCache.shared(), null, null, pool);
+            TamperMap parallel = pooled.localize(marked, width, height, 6L, "u", "c", TamperGrid.DEFAULT);
+            assertArrayEquals(parallel.sigmas(), serial.sigmas(), 1e-12);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testJfrEventsAreRecorded() throws Exception {
+        System.out.println("TEST: Recording JFR events for embed / detect...");
+        assumeTrue(CoreEvents.active() instanceof JfrCoreEvents, "jdk.jfr not available");
+
+        int width = 320, height = 240;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(9);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+
+        Path file = Files.createTempFile("lumatrace", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.lumatrace.Embed");
+            recording.enable("org.lumatrace.Detect");
+            recording.enable("org.lumatrace.AnalyzeScale");
+            recording.enable("org.lumatrace.GenerateSignature");
+            recording.start();
+            // Semilla nueva: la caché no puede evitar la generación
+            String content = UUID.randomUUID().toString();
+            int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, 3L, "jfr", content);
+            DetectionReport report = new WatermarkDetector().detect(marked, width, height, 3L, "jfr", content);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent detect = events.stream().filter(e -> e.getEventType().getName().equals("org.lumatrace.Detect"))
+                    .findFirst().orElseThrow();
+            assertEquals(width, detect.getInt("width"));
+            assertEquals(height, detect.getInt("height"));
+            assertEquals(report.confidenceSigma(), detect.getDouble("sigma"), 1e-12);
+            assertEquals(report.timings().scales().size(), detect.getInt("scalesEvaluated"));
+            List<RecordedEvent> scales = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("org.lumatrace.AnalyzeScale")).toList();
+            assertEquals(report.timings().scales().size(), scales.size());
+            // Cada escala se mide mientras se evalúa, dentro de la detección
+            for (RecordedEvent scale : scales) {
+                assertTrue(scale.getDuration().toNanos() > 0);
+                assertFalse(scale.getStartTime().isBefore(detect.getStartTime()));
+                assertFalse(scale.getEndTime().isAfter(detect.getEndTime()));
+            }
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("org.lumatrace.Embed")
+                    && e.getInt("width") == width && e.getLong("allocatedBytes") >= 0));
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("org.lumatrace.GenerateSignature")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * In-memory source that reports expensive re-reads, to exercise the fused first pass.
+     */
+    private record SinglePassPixels(IntArrayPixels pixels) implements PixelSource {
+        @Override public int width() { return pixels.width(); }
+        @Override public int height() { return pixels.height(); }
+        @Override public void readRows(int y, int rows, int[] dst, int offset) { pixels.readRows(y, rows, dst, offset); }
+        @Override public boolean isRereadCheap() { return false; }
+    }
+
+    private static int[] readAll(PixelSource source, int width, int height) {
+        int[] out = new int[width * height];
+        // Bandas irregulares para ejercitar los desplazamientos
+        for (int y = 0; y < height; y += 13) source.readRows(y, Math.min(13, height - y), out, y * width);
+        return out;
+    }
+}
@@ -0,0 +1,27 @@
+package org.lumatrace.cloud.config;
+
+import org.lumatrace.core.SignatureBank;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Banco de firmas precomputadas para identificación ciega.
+ * Solo se activa si {@code lumatrace.signature-bank.path} está definido.
+ */
+@Configuration
+public class SignatureBankConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty("lumatrace.signature-bank.path")
+    public SignatureBank signatureBank(@Value("${lumatrace.signature-bank.path}") Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        return SignatureBank.open(path);
+    }
+}
@@ -0,0 +1,241 @@
+package org.lumatrace.cloud.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.lumatrace.cloud.dto.BatchVerificationItem;
+import org.lumatrace.cloud.service.DetectionExecutor;
+import org.lumatrace.cloud.service.PhotoVerifier;
+import org.lumatrace.cloud.service.VerificationCache;
+import org.lumatrace.core.DetectionReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Verificación por lotes. Los resultados se emiten como NDJSON (una línea por imagen)
+ * en el orden en que terminan; {@code index} referencia la posición de entrada.
+ *
+ * Dos formatos de entrada:
+ *  - multipart: partes {@code image}, {@code userId} y {@code photoId} repetidas y alineadas.
+ *  - application/zip: cuerpo en streaming, entradas {@code <userId>/<photoId>.<ext>}
+ *    (o {@code <photoId>.<ext>} si se pasa {@code ?userId=}). Sin buffer multipart.
+ */
+@RestController
+@RequestMapping("/api/v1/photos")
+public class BatchVerificationController {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchVerificationController.class);
+
+    private final DetectionExecutor detectionExecutor;
+    private final PhotoVerifier photoVerifier;
+    private final VerificationCache verificationCache;
+    private final ObjectMapper objectMapper;
+    private final Duration batchTimeout;
+    private final long maxEntryBytes;
+
+    public BatchVerificationController(
+            DetectionExecutor detectionExecutor,
+            PhotoVerifier photoVerifier,
+            VerificationCache verificationCache,
+            ObjectMapper objectMapper,
+            @Value("${lumatrace.batch.timeout:PT10M}") Duration batchTimeout,
+            @Value("${lumatrace.batch.max-entry-size:20MB}") DataSize maxEntrySize
+    ) {
+        this.detectionExecutor = detectionExecutor;
+        this.photoVerifier = photoVerifier;
+        this.verificationCache = verificationCache;
+        this.objectMapper = objectMapper;
+        this.batchTimeout = batchTimeout;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+    }
+
+    @PostMapping(value = "/verify/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> verifyBatch(
+            @RequestParam("image") List<MultipartFile> images,
+            @RequestParam("userId") List<String> userIds,
+            @RequestParam("photoId") List<String> photoIds
+    ) {
+        if (images.size() != userIds.size() || images.size() != photoIds.size()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return stream(batch -> {
+            for (int i = 0; i < images.size(); i++) {
+                MultipartFile image = images.get(i);
+                batch.submit(i, userIds.get(i), photoIds.get(i), image::getInputStream);
+            }
+        });
+    }
+
+    @PostMapping(value = "/verify/batch", consumes = "application/zip")
+    public ResponseEntity<ResponseBodyEmitter> verifyBatchZip(
+            HttpServletRequest request,
+            @RequestParam(value = "userId", required = false) String userId
+    ) {
+        return stream(batch -> {
+            try (ZipInputStream zip = new ZipInputStream(request.getInputStream())) {
+                int index = 0;
+                for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                    if (entry.isDirectory()) continue;
+                    int item = index++;
+
+                    String[] ids = idsOf(entry.getName(), userId);
+                    if (ids == null) {
+                        batch.emit(new BatchVerificationItem(item, userId, entry.getName(), false, 0.0, "ERROR",
+                                "Entry name must be <userId>/<photoId>.<ext>"));
+                        continue;
+                    }
+
+                    // Solo la entrada actual vive en memoria; el resto del ZIP sigue en el socket
+                    byte[] bytes = zip.readNBytes((int) Math.min(maxEntryBytes + 1, Integer.MAX_VALUE));
+                    if (bytes.length > maxEntryBytes) {
+                        batch.emit(new BatchVerificationItem(item, ids[0], ids[1], false, 0.0, "ERROR", "Entry too large"));
+                        continue;
+                    }
+                    batch.submit(item, ids[0], ids[1], () -> new ByteArrayInputStream(bytes));
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs {@code producer} on a virtual thread and streams results through an NDJSON emitter.
+     * At most one item per detection thread is in flight, so a batch cannot monopolize the queue
+     * and ZIP entries are never buffered ahead of the workers.
+     */
+    private ResponseEntity<ResponseBodyEmitter> stream(BatchProducer producer) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeout.toMillis());
+        Batch batch = new Batch(emitter, detectionExecutor.poolSize());
+
+        Thread.ofVirtual().name("lumatrace-batch").start(() -> {
+            try {
+                producer.produce(batch);
+                batch.awaitInFlight();
+                emitter.complete();
+            } catch (Exception e) {
+                log.warn("Batch verification aborted", e);
+                emitter.completeWithError(e);
+            }
+        });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    private static String[] idsOf(String entryName, String userId) {
+        String path = entryName.replace('\\', '/');
+        int slash = path.lastIndexOf('/');
+        String file = path.substring(slash + 1);
+        int dot = file.lastIndexOf('.');
+        String photoId = dot > 0 ? file.substring(0, dot) : file;
+        if (photoId.isEmpty()) return null;
+        if (userId != null) return new String[]{userId, photoId};
+
+        String dir = slash > 0 ? path.substring(0, slash) : "";
+        String owner = dir.substring(dir.lastIndexOf('/') + 1);
+        return owner.isEmpty() ? null : new String[]{owner, photoId};
+    }
+
+    @FunctionalInterface
+    private interface BatchProducer {
+        void produce(Batch batch) throws Exception;
+    }
+
+    private final class Batch {
+        private final ResponseBodyEmitter emitter;
+        private final Semaphore inFlight;
+        private final int permits;
+
+        Batch(ResponseBodyEmitter emitter, int permits) {
+            this.emitter = emitter;
+            this.permits = permits;
+            this.inFlight = new Semaphore(permits);
+        }
+
+        void submit(int index, String userId, String photoId, Callable<InputStream> image) throws Exception {
+            VerificationCache.Key key;
+            try (InputStream in = image.call()) {
+                key = verificationCache.keyOf(in, userId, photoId);
+            } catch (IOException e) {
+                emit(toItem(index, userId, photoId, null, e));
+                return;
+            }
+            // Los aciertos se emiten sin pasar por el pool ni consumir permisos
+            DetectionReport cached = verificationCache.get(key);
+            if (cached != null) {
+                emit(toItem(index, userId, photoId, cached, null));
+                return;
+            }
+
+            inFlight.acquire();
+            try {
+                detectionExecutor.submit(() -> {
+                    try (InputStream in = image.call()) {
+                        DetectionReport report = photoVerifier.verify(in, userId, photoId);
+                        verificationCache.put(key, report);
+                        return report;
+                    }
+                }).whenComplete((report, error) -> {
+                    try {
+                        emit(toItem(index, userId, photoId, report, error));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (DetectionExecutor.SaturatedException e) {
+                inFlight.release();
+                emit(new BatchVerificationItem(index, userId, photoId, false, 0.0, "RETRY",
+                        "Verification capacity exhausted. Retry after " + e.getRetryAfterSeconds() + "s."));
+            }
+        }
+
+        void emit(BatchVerificationItem item) {
+            try {
+                String line = objectMapper.writeValueAsString(item) + "\n";
+                synchronized (emitter) {
+                    emitter.send(line, MediaType.APPLICATION_NDJSON);
+                }
+            } catch (IOException e) {
+                // Cliente desconectado: el resto del lote se descarta en silencio
+                log.debug("Batch client gone", e);
+            }
+        }
+
+        void awaitInFlight() throws InterruptedException {
+            inFlight.acquire(permits);
+            inFlight.release(permits);
+        }
+
+        private BatchVerificationItem toItem(int index, String userId, String photoId, DetectionReport report, Throwable error) {
+            if (error instanceof TimeoutException) {
+                return new BatchVerificationItem(index, userId, photoId, false, 0.0, "ERROR", "Verification deadline exceeded.");
+            }
+            if (error != null) {
+                return new BatchVerificationItem(index, userId, photoId, false, 0.0, "ERROR", "Error processing image: " + error.getMessage());
+            }
+            if (report == null) {
+                return new BatchVerificationItem(index, userId, photoId, false, 0.0, "ERROR", "Invalid image format");
+            }
+            double sigma = report.confidenceSigma();
+            boolean authentic = sigma >= 4.0;
+            return new BatchVerificationItem(index, userId, photoId, authentic, sigma, report.status().name(),
+                    String.format("Confidence: %.2f | Scale: %.2fx | Latency: %dms", sigma, report.estimatedScale(), report.latencyMs()));
+        }
+    }
+}
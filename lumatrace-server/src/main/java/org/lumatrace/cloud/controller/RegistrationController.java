@@ -1,55 +1,246 @@
 package org.lumatrace.cloud.controller;
 
 import jakarta.validation.Valid;
+import org.lumatrace.awt.ImageReaderPixels;
+import org.lumatrace.cloud.dto.IdentificationMatch;
+import org.lumatrace.cloud.dto.IdentificationResponse;
+import org.lumatrace.cloud.dto.PhotoRegistrationBatchRequest;
+import org.lumatrace.cloud.dto.PhotoRegistrationBatchResponse;
+import org.lumatrace.cloud.dto.PhotoRegistrationPage;
 import org.lumatrace.cloud.dto.PhotoRegistrationRequest;
 import org.lumatrace.cloud.dto.PhotoRegistrationResponse;
+import org.lumatrace.cloud.dto.PhotoRegistrationSummary;
+import org.lumatrace.cloud.dto.TamperHeatmap;
 import org.lumatrace.cloud.dto.VerificationResponse;
 import org.lumatrace.cloud.lumatrace.LumaTraceCanonicalizer;
 import org.lumatrace.cloud.lumatrace.LumaTraceManifest;
 import org.lumatrace.cloud.model.PhotoRegistration;
 import org.lumatrace.cloud.repository.PhotoRepository;
+import org.lumatrace.cloud.service.DetectionExecutor;
+import org.lumatrace.cloud.service.LumaTraceMetrics;
+import org.lumatrace.cloud.service.PhotoVerifier;
+import org.lumatrace.cloud.service.VerificationCache;
+import org.lumatrace.core.BankMatch;
+import org.lumatrace.core.Candidate;
+import org.lumatrace.core.CandidateMatch;
 import org.lumatrace.core.KeyDerivation;
+import org.lumatrace.core.SignatureBank;
+import org.lumatrace.core.TamperGrid;
 import org.lumatrace.core.WatermarkDetector;
 import org.lumatrace.core.DetectionReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/v1/photos")
 public class RegistrationController {
 
+    private static final Logger log = LoggerFactory.getLogger(RegistrationController.class);
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final PhotoRepository repository;
     private final long masterKey;
+    private final Optional<SignatureBank> signatureBank;
+    private final DetectionExecutor detectionExecutor;
+    private final PhotoVerifier photoVerifier;
+    private final VerificationCache verificationCache;
+    private final LumaTraceMetrics metrics;
+    private final int maxRegistrationBatch;
+    private final boolean idempotentByDefault;
 
     public RegistrationController(
             PhotoRepository repository,
-            @Value("${lumatrace.master-key}") long masterKey
+            @Value("${lumatrace.master-key}") long masterKey,
+            Optional<SignatureBank> signatureBank,
+            DetectionExecutor detectionExecutor,
+            PhotoVerifier photoVerifier,
+            VerificationCache verificationCache,
+            LumaTraceMetrics metrics,
+            @Value("${lumatrace.register.max-batch:1000}") int maxRegistrationBatch,
+            @Value("${lumatrace.register.idempotent:false}") boolean idempotentByDefault
     ) {
         this.repository = repository;
         this.masterKey = masterKey;
+        this.signatureBank = signatureBank;
+        this.detectionExecutor = detectionExecutor;
+        this.photoVerifier = photoVerifier;
+        this.verificationCache = verificationCache;
+        this.metrics = metrics;
+        this.maxRegistrationBatch = maxRegistrationBatch;
+        this.idempotentByDefault = idempotentByDefault;
     }
 
     // --- ENDPOINT 1: REGISTRO (Firma) ---
+    // Modo idempotente: el mismo contentHash del mismo usuario devuelve el registro y la semilla originales
     @PostMapping("/register")
     public ResponseEntity<PhotoRegistrationResponse> registerPhoto(
-            @Valid @RequestBody PhotoRegistrationRequest request
+            @Valid @RequestBody PhotoRegistrationRequest request,
+            @RequestParam(value = "idempotent", required = false) Boolean idempotent
+    ) {
+        if (!isIdempotent(idempotent)) {
+            PhotoRegistration saved = metrics.persistence("register", () -> repository.save(toEntity(request, false)));
+            return ResponseEntity.ok(certify(saved, false));
+        }
+
+        Optional<PhotoRegistration> existing = findOriginal(request);
+        if (existing.isPresent()) {
+            return ResponseEntity.ok(certify(existing.get(), true));
+        }
+        try {
+            PhotoRegistration saved = metrics.persistence("register", () -> repository.save(toEntity(request, true)));
+            return ResponseEntity.ok(certify(saved, false));
+        } catch (DataIntegrityViolationException e) {
+            // Una petición idéntica concurrente (p. ej. el reintento del cliente) insertó primero
+            PhotoRegistration original = findOriginal(request).orElseThrow(() -> e);
+            return ResponseEntity.ok(certify(original, true));
+        }
+    }
+
+    private Optional<PhotoRegistration> findOriginal(PhotoRegistrationRequest request) {
+        return metrics.persistence("find-duplicate", () ->
+                repository.findFirstByUserIdAndContentHashOrderByCreatedAtAsc(request.getUserId(), request.getContentHash()));
+    }
+
+    // --- ENDPOINT 1b: REGISTRO POR LOTES ---
+    // Una transacción y un único flush: Hibernate agrupa los INSERT (hibernate.jdbc.batch_size)
+    @PostMapping("/register/batch")
+    public ResponseEntity<PhotoRegistrationBatchResponse> registerPhotos(
+            @Valid @RequestBody PhotoRegistrationBatchRequest request,
+            @RequestParam(value = "idempotent", required = false) Boolean idempotent
     ) {
-        PhotoRegistration saved = repository.save(
-                new PhotoRegistration(
-                        request.getUserId(),
-                        request.getContentHash(),
-                        request.getDeviceModel(),
-                        request.getLatitude(),
-                        request.getLongitude()
-                )
+        List<PhotoRegistrationRequest> items = request.getRegistrations();
+        if (items.size() > maxRegistrationBatch) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean dedupe = isIdempotent(idempotent);
+        List<PhotoRegistrationResponse> certificates;
+        try {
+            certificates = registerAll(items, dedupe);
+        } catch (DataIntegrityViolationException e) {
+            if (!dedupe) throw e;
+            // Un registro idempotente concurrente ganó la carrera: el lote se revirtió entero y se repite una vez
+            certificates = registerAll(items, true);
+        }
+        return ResponseEntity.ok(new PhotoRegistrationBatchResponse(certificates));
+    }
+
+    private List<PhotoRegistrationResponse> registerAll(List<PhotoRegistrationRequest> items, boolean dedupe) {
+        // Una sola consulta para todo el lote; los duplicados internos del lote también se pliegan
+        Map<String, PhotoRegistration> known = new HashMap<>();
+        if (dedupe) {
+            Set<String> hashes = new HashSet<>();
+            for (PhotoRegistrationRequest item : items) {
+                hashes.add(item.getContentHash());
+            }
+            for (PhotoRegistration existing : metrics.persistence("find-duplicates", () -> repository.findByContentHashIn(hashes))) {
+                known.merge(dedupeKey(existing.getUserId(), existing.getContentHash()), existing,
+                        (a, b) -> a.getCreatedAt().isAfter(b.getCreatedAt()) ? b : a);
+            }
+        }
+
+        PhotoRegistration[] resolved = new PhotoRegistration[items.size()];
+        boolean[] duplicate = new boolean[items.size()];
+        List<PhotoRegistration> entities = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            PhotoRegistrationRequest item = items.get(i);
+            if (dedupe) {
+                String key = dedupeKey(item.getUserId(), item.getContentHash());
+                PhotoRegistration existing = known.get(key);
+                if (existing != null) {
+                    resolved[i] = existing;
+                    duplicate[i] = true;
+                    continue;
+                }
+                resolved[i] = toEntity(item, true);
+                known.put(key, resolved[i]);
+            } else {
+                resolved[i] = toEntity(item, false);
+            }
+            entities.add(resolved[i]);
+        }
+
+        // persist() conserva las instancias: resolved[] ya tiene los IDs generados
+        metrics.persistence("register-batch", () -> repository.saveAll(entities));
+
+        List<PhotoRegistrationResponse> certificates = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            certificates.add(certify(resolved[i], duplicate[i]));
+        }
+        return certificates;
+    }
+
+    // --- ENDPOINT 1c: LISTADO POR USUARIO (paginación por clave) ---
+    @GetMapping
+    public ResponseEntity<PhotoRegistrationPage> listRegistrations(
+            @RequestParam("userId") String userId,
+            @RequestParam(value = "after", required = false) UUID after,
+            @RequestParam(value = "limit", defaultValue = "50") int limit
+    ) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Se pide una fila de más para saber si hay página siguiente sin un COUNT
+        Limit window = Limit.of(pageSize + 1);
+        List<PhotoRegistration> rows = after == null
+                ? repository.findByUserIdOrderByIdAsc(userId, window)
+                : repository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, after, window);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<PhotoRegistrationSummary> page = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (PhotoRegistration row : hasMore ? rows.subList(0, pageSize) : rows) {
+            page.add(new PhotoRegistrationSummary(row.getId(), row.getContentHash(), row.getDeviceModel(), row.getCreatedAt()));
+        }
+        UUID nextCursor = hasMore ? page.get(page.size() - 1).getPhotoId() : null;
+        return ResponseEntity.ok(new PhotoRegistrationPage(page, nextCursor));
+    }
+
+    private boolean isIdempotent(Boolean requested) {
+        return requested != null ? requested : idempotentByDefault;
+    }
+
+    private static String dedupeKey(String userId, String contentHash) {
+        return userId + '\n' + contentHash;
+    }
+
+    private static PhotoRegistration toEntity(PhotoRegistrationRequest request, boolean idempotent) {
+        PhotoRegistration entity = new PhotoRegistration(
+                request.getUserId(),
+                request.getContentHash(),
+                request.getDeviceModel(),
+                request.getLatitude(),
+                request.getLongitude()
         );
+        return idempotent ? entity.idempotent() : entity;
+    }
 
+    /**
+     * Builds the manifest, canonical hash and watermark seed of a persisted registration.
+     * New registrations are also indexed in the signature bank, if configured; duplicates
+     * already are.
+     */
+    private PhotoRegistrationResponse certify(PhotoRegistration saved, boolean duplicate) {
         LumaTraceManifest manifest = new LumaTraceManifest(
                 "lumatrace/1.0",
                 saved.getId(),
@@ -61,8 +252,8 @@ public class RegistrationController {
                 saved.getLongitude()
         );
 
-        String canonicalJson = LumaTraceCanonicalizer.toCanonicalJson(manifest);
-        String hash = LumaTraceCanonicalizer.sha256(canonicalJson);
+        // Una sola serialización para el JSON y su hash
+        LumaTraceCanonicalizer.CanonicalManifest canonical = metrics.canonicalization(() -> LumaTraceCanonicalizer.canonicalize(manifest));
 
         long seed = KeyDerivation.deriveSeed(
                 masterKey,
@@ -70,67 +261,234 @@ public class RegistrationController {
                 saved.getId().toString()
         );
 
-        return ResponseEntity.ok(
-                new PhotoRegistrationResponse(
-                        saved.getId(),
-                        saved.getCreatedAt(),
-                        canonicalJson,
-                        hash,
-                        seed
-                )
+        // El banco es un índice derivado: si falla la escritura el registro sigue siendo válido
+        if (signatureBank.isPresent() && !duplicate) {
+            try {
+                signatureBank.get().append(saved.getId(), seed);
+            } catch (IOException e) {
+                log.warn("Signature bank append failed for {}", saved.getId(), e);
+            }
+        }
+
+        return new PhotoRegistrationResponse(
+                saved.getId(),
+                saved.getCreatedAt(),
+                canonical.json(),
+                canonical.sha256(),
+                seed,
+                duplicate
         );
     }
 
     // --- ENDPOINT 2: VERIFICACIÓN (Detección) ---
+    // heatmap=true añade el mapa de sigma por ventanas de 256 px (localización de manipulaciones)
     @PostMapping("/verify")
     public ResponseEntity<VerificationResponse> verifyPhoto(
             @RequestParam("image") MultipartFile imageFile,
             @RequestParam("userId") String userId,
-            @RequestParam("photoId") String photoId
+            @RequestParam("photoId") String photoId,
+            @RequestParam(value = "heatmap", defaultValue = "false") boolean heatmap
     ) {
         try {
             if (imageFile.isEmpty()) {
                 return ResponseEntity.badRequest().body(new VerificationResponse(false, 0.0, "No image provided"));
             }
 
-            BufferedImage bufferedImage = ImageIO.read(imageFile.getInputStream());
-            if (bufferedImage == null) {
-                return ResponseEntity.badRequest().body(new VerificationResponse(false, 0.0, "Invalid image format"));
+            // Reenvío idéntico: el hash se calcula en el hilo de la petición y un acierto no ocupa el pool
+            VerificationCache.Key key;
+            try (InputStream in = imageFile.getInputStream()) {
+                key = verificationCache.keyOf(in, userId, photoId);
+            }
+            // La caché solo guarda el informe global: con heatmap se vuelve a decodificar
+            DetectionReport cached = heatmap ? null : verificationCache.get(key);
+            if (cached != null) {
+                return toVerificationResponse(cached, null, true);
             }
 
-            int width = bufferedImage.getWidth();
-            int height = bufferedImage.getHeight();
-            int[] pixels = bufferedImage.getRGB(0, 0, width, height, null, 0, width);
+            // Decodificación + detección en el pool acotado; el hilo de la petición solo espera
+            TamperGrid grid = heatmap ? TamperGrid.DEFAULT : null;
+            return detectionExecutor.call(() -> verify(imageFile, userId, photoId, key, grid));
 
-            WatermarkDetector detector = new WatermarkDetector();
+        } catch (DetectionExecutor.SaturatedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new VerificationResponse(false, 0.0, "Verification capacity exhausted. Retry later."));
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new VerificationResponse(false, 0.0, "Verification deadline exceeded."));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(new VerificationResponse(false, 0.0, "Error processing image: " + e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(new VerificationResponse(false, 0.0, "Internal verification error."));
+        }
+    }
+
+    private ResponseEntity<VerificationResponse> verify(MultipartFile imageFile, String userId, String photoId,
+                                                       VerificationCache.Key key, TamperGrid grid) throws IOException {
+        // 1. Ejecutar detección
+        PhotoVerifier.Verification verification = photoVerifier.verify(imageFile.getInputStream(), userId, photoId, grid);
+        if (verification == null) {
+            return ResponseEntity.badRequest().body(new VerificationResponse(false, 0.0, "Invalid image format"));
+        }
+        DetectionReport report = verification.report();
+        verificationCache.put(key, report);
+        TamperHeatmap heatmap = verification.tamperMap() == null ? null : TamperHeatmap.of(verification.tamperMap());
+        return toVerificationResponse(report, heatmap, false);
+    }
 
-            // 1. Ejecutar detección
-            DetectionReport report = detector.detect(pixels, width, height, masterKey, userId, photoId);
+    private ResponseEntity<VerificationResponse> toVerificationResponse(DetectionReport report, TamperHeatmap heatmap,
+                                                                        boolean cached) {
 
-            // 2. Leer los datos CORRECTOS del Record
-            double sigma = report.confidenceSigma(); // Nombre correcto
-            double scale = report.estimatedScale();  // Nombre correcto
+        // 2. Leer los datos CORRECTOS del Record
+        double sigma = report.confidenceSigma(); // Nombre correcto
+        double scale = report.estimatedScale();  // Nombre correcto
 
-            // Definimos autenticidad: Si sigma >= 4.0 (umbral estándar)
-            boolean authentic = sigma >= 4.0;
+        // Definimos autenticidad: Si sigma >= 4.0 (umbral estándar)
+        boolean authentic = sigma >= 4.0;
 
-            String message = String.format("Status: %s | Confidence: %.2f | Scale: %.2fx | Latency: %dms",
-                    report.status(), // Enum status
-                    sigma,
-                    scale,
-                    report.latencyMs());
+        String message = String.format("Status: %s | Confidence: %.2f | Scale: %.2fx | Latency: %dms",
+                report.status(), // Enum status
+                sigma,
+                scale,
+                report.latencyMs());
+        if (cached) message += " | Cached";
 
-            return ResponseEntity.ok(new VerificationResponse(
-                    authentic,
-                    sigma,
-                    authentic ? "VERIFIED. " + message : "FAILED. " + message
-            ));
+        return ResponseEntity.ok(new VerificationResponse(
+                authentic,
+                sigma,
+                authentic ? "VERIFIED. " + message : "FAILED. " + message,
+                heatmap
+        ));
+    }
 
+    // --- ENDPOINT 3: IDENTIFICACIÓN (Detección sin photoId) ---
+    // Con userId: candidatos del usuario. Sin userId: búsqueda ciega en el banco de firmas.
+    @PostMapping("/identify")
+    public ResponseEntity<IdentificationResponse> identifyPhoto(
+            @RequestParam("image") MultipartFile imageFile,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "limit", defaultValue = "5") int limit
+    ) {
+        try {
+            if (imageFile.isEmpty()) {
+                return ResponseEntity.badRequest().body(new IdentificationResponse(false, 0, "No image provided", List.of()));
+            }
+
+            if (userId == null) {
+                if (signatureBank.isEmpty()) {
+                    return ResponseEntity.badRequest().body(new IdentificationResponse(false, 0, "userId required: no signature bank configured", List.of()));
+                }
+                SignatureBank bank = signatureBank.get();
+                return detectionExecutor.call(() -> identifyBlind(imageFile, bank, Math.max(limit, 1)));
+            }
+
+            // La consulta a BD se queda en el hilo de la petición; solo el cómputo va al pool
+            List<UUID> photoIds = repository.findIdsByUserId(userId);
+            if (photoIds.isEmpty()) {
+                return ResponseEntity.ok(new IdentificationResponse(false, 0, "No registrations for user", List.of()));
+            }
+
+            List<Candidate> candidates = new ArrayList<>(photoIds.size());
+            for (UUID photoId : photoIds) {
+                candidates.add(new Candidate(userId, photoId.toString()));
+            }
+
+            return detectionExecutor.call(() -> identifyAmong(imageFile, candidates, Math.max(limit, 1)));
+
+        } catch (DetectionExecutor.SaturatedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new IdentificationResponse(false, 0, "Identification capacity exhausted. Retry later.", List.of()));
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new IdentificationResponse(false, 0, "Identification deadline exceeded.", List.of()));
         } catch (IOException e) {
-            return ResponseEntity.internalServerError().body(new VerificationResponse(false, 0.0, "Error processing image: " + e.getMessage()));
+            return ResponseEntity.internalServerError().body(new IdentificationResponse(false, 0, "Error processing image: " + e.getMessage(), List.of()));
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.internalServerError().body(new VerificationResponse(false, 0.0, "Internal verification error."));
+            return ResponseEntity.internalServerError().body(new IdentificationResponse(false, 0, "Internal identification error.", List.of()));
+        }
+    }
+
+    private ResponseEntity<IdentificationResponse> identifyAmong(MultipartFile imageFile, List<Candidate> candidates, int limit) throws IOException {
+        long startTime;
+        List<CandidateMatch> ranked;
+        try (ImageReaderPixels source = ImageReaderPixels.open(ImageIO.createImageInputStream(imageFile.getInputStream()))) {
+            if (source == null) {
+                return ResponseEntity.badRequest().body(new IdentificationResponse(false, 0, "Invalid image format", List.of()));
+            }
+            // 1. Un único plegado por escala, correlado contra todas las firmas del usuario
+            startTime = System.nanoTime();
+            ranked = new WatermarkDetector().detectAny(source, masterKey, candidates);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        metrics.recordTotal("identify", elapsed);
+        long latency = TimeUnit.NANOSECONDS.toMillis(elapsed);
+
+        List<IdentificationMatch> matches = new ArrayList<>();
+        for (CandidateMatch match : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            matches.add(new IdentificationMatch(
+                    match.candidate().contentId(),
+                    match.confidenceSigma(),
+                    match.estimatedScale(),
+                    match.status().name()
+            ));
         }
+
+        // Mismo umbral que /verify
+        boolean identified = !ranked.isEmpty() && ranked.get(0).confidenceSigma() >= 4.0;
+        String message = String.format("Candidates: %d | Best confidence: %.2f | Latency: %dms",
+                candidates.size(),
+                ranked.get(0).confidenceSigma(),
+                latency);
+
+        return ResponseEntity.ok(new IdentificationResponse(
+                identified,
+                candidates.size(),
+                identified ? "IDENTIFIED. " + message : "NOT FOUND. " + message,
+                matches
+        ));
+    }
+
+    private ResponseEntity<IdentificationResponse> identifyBlind(MultipartFile imageFile, SignatureBank bank, int limit) throws IOException {
+        long scanned = bank.size();
+        long startTime;
+        List<BankMatch> ranked;
+        try (ImageReaderPixels source = ImageReaderPixels.open(ImageIO.createImageInputStream(imageFile.getInputStream()))) {
+            if (source == null) {
+                return ResponseEntity.badRequest().body(new IdentificationResponse(false, 0, "Invalid image format", List.of()));
+            }
+            startTime = System.nanoTime();
+            ranked = new WatermarkDetector().identify(source, bank, limit);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        metrics.recordTotal("identify-blind", elapsed);
+        long latency = TimeUnit.NANOSECONDS.toMillis(elapsed);
+
+        List<IdentificationMatch> matches = new ArrayList<>();
+        for (BankMatch match : ranked) {
+            matches.add(new IdentificationMatch(
+                    match.registrationId().toString(),
+                    match.confidenceSigma(),
+                    match.estimatedScale(),
+                    match.status().name()
+            ));
+        }
+
+        double best = ranked.isEmpty() ? 0.0 : ranked.get(0).confidenceSigma();
+        boolean identified = best >= 4.0;
+        String message = String.format("Bank records: %d | Best confidence: %.2f | Latency: %dms", scanned, best, latency);
+
+        return ResponseEntity.ok(new IdentificationResponse(
+                identified,
+                (int) Math.min(scanned, Integer.MAX_VALUE),
+                identified ? "IDENTIFIED. " + message : "NOT FOUND. " + message,
+                matches
+        ));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package org.lumatrace.cloud.dto;
+
+/**
+ * One NDJSON line of a batch verification; emitted as soon as its item finishes.
+ */
+public class BatchVerificationItem {
+
+    private final int index;
+    private final String userId;
+    private final String photoId;
+    private final boolean authentic;
+    private final double confidenceScore;
+    private final String status;
+    private final String message;
+
+    public BatchVerificationItem(int index, String userId, String photoId, boolean authentic,
+                                 double confidenceScore, String status, String message) {
+        this.index = index;
+        this.userId = userId;
+        this.photoId = photoId;
+        this.authentic = authentic;
+        this.confidenceScore = confidenceScore;
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getIndex() { return index; }
+    public String getUserId() { return userId; }
+    public String getPhotoId() { return photoId; }
+    public boolean isAuthentic() { return authentic; }
+    public double getConfidenceScore() { return confidenceScore; }
+    public String getStatus() { return status; }
+    public String getMessage() { return message; }
+}
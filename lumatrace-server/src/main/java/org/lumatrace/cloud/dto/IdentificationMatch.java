@@ -0,0 +1,21 @@
+package org.lumatrace.cloud.dto;
+
+public class IdentificationMatch {
+
+    private String photoId;
+    private double confidenceScore;
+    private double estimatedScale;
+    private String status;
+
+    public IdentificationMatch(String photoId, double confidenceScore, double estimatedScale, String status) {
+        this.photoId = photoId;
+        this.confidenceScore = confidenceScore;
+        this.estimatedScale = estimatedScale;
+        this.status = status;
+    }
+
+    public String getPhotoId() { return photoId; }
+    public double getConfidenceScore() { return confidenceScore; }
+    public double getEstimatedScale() { return estimatedScale; }
+    public String getStatus() { return status; }
+}
@@ -0,0 +1,23 @@
+package org.lumatrace.cloud.dto;
+
+import java.util.List;
+
+public class IdentificationResponse {
+
+    private boolean identified;
+    private int candidatesScanned;
+    private String message;
+    private List<IdentificationMatch> matches;
+
+    public IdentificationResponse(boolean identified, int candidatesScanned, String message, List<IdentificationMatch> matches) {
+        this.identified = identified;
+        this.candidatesScanned = candidatesScanned;
+        this.message = message;
+        this.matches = matches;
+    }
+
+    public boolean isIdentified() { return identified; }
+    public int getCandidatesScanned() { return candidatesScanned; }
+    public String getMessage() { return message; }
+    public List<IdentificationMatch> getMatches() { return matches; }
+}
@@ -0,0 +1,26 @@
+package org.lumatrace.cloud.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Bulk registration payload (offline captures synced by camera fleets).
+ */
+public class PhotoRegistrationBatchRequest {
+
+    @NotEmpty
+    private List<@Valid PhotoRegistrationRequest> registrations;
+
+    public PhotoRegistrationBatchRequest() {
+    }
+
+    public PhotoRegistrationBatchRequest(List<PhotoRegistrationRequest> registrations) {
+        this.registrations = registrations;
+    }
+
+    public List<PhotoRegistrationRequest> getRegistrations() { return registrations; }
+
+    public void setRegistrations(List<PhotoRegistrationRequest> registrations) { this.registrations = registrations; }
+}
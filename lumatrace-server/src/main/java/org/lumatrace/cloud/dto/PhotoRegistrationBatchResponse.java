@@ -0,0 +1,20 @@
+package org.lumatrace.cloud.dto;
+
+import java.util.List;
+
+/**
+ * Certificates for a bulk registration, in request order.
+ */
+public class PhotoRegistrationBatchResponse {
+
+    private final int registered;
+    private final List<PhotoRegistrationResponse> registrations;
+
+    public PhotoRegistrationBatchResponse(List<PhotoRegistrationResponse> registrations) {
+        this.registered = registrations.size();
+        this.registrations = registrations;
+    }
+
+    public int getRegistered() { return registered; }
+    public List<PhotoRegistrationResponse> getRegistrations() { return registrations; }
+}
@@ -0,0 +1,22 @@
+package org.lumatrace.cloud.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One keyset page of a user's registrations. Pass {@code nextCursor} as {@code after}
+ * to fetch the next page; it is {@code null} on the last page.
+ */
+public class PhotoRegistrationPage {
+
+    private final List<PhotoRegistrationSummary> registrations;
+    private final UUID nextCursor;
+
+    public PhotoRegistrationPage(List<PhotoRegistrationSummary> registrations, UUID nextCursor) {
+        this.registrations = registrations;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PhotoRegistrationSummary> getRegistrations() { return registrations; }
+    public UUID getNextCursor() { return nextCursor; }
+}
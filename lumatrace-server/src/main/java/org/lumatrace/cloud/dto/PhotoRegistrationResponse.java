@@ -13,13 +13,22 @@ public class PhotoRegistrationResponse {
     private final String canonicalJson;
     private final String canonicalHash;
     private final long watermarkSeed;
+    private final boolean duplicate;
 
     public PhotoRegistrationResponse(UUID photoId, LocalDateTime createdAt, String canonicalJson, String canonicalHash, long watermarkSeed) {
+        this(photoId, createdAt, canonicalJson, canonicalHash, watermarkSeed, false);
+    }
+
+    /**
+     * @param duplicate True when an idempotent register matched an existing registration.
+     */
+    public PhotoRegistrationResponse(UUID photoId, LocalDateTime createdAt, String canonicalJson, String canonicalHash, long watermarkSeed, boolean duplicate) {
         this.photoId = photoId;
         this.createdAt = createdAt;
         this.canonicalJson = canonicalJson;
         this.canonicalHash = canonicalHash;
         this.watermarkSeed = watermarkSeed;
+        this.duplicate = duplicate;
     }
 
     public UUID getPhotoId() { return photoId; }
@@ -27,4 +36,5 @@ public class PhotoRegistrationResponse {
     public String getCanonicalJson() { return canonicalJson; }
     public String getCanonicalHash() { return canonicalHash; }
     public long getWatermarkSeed() { return watermarkSeed; }
+    public boolean isDuplicate() { return duplicate; }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package org.lumatrace.cloud.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class PhotoRegistrationSummary {
+
+    private final UUID photoId;
+    private final String contentHash;
+    private final String deviceModel;
+    private final LocalDateTime createdAt;
+
+    public PhotoRegistrationSummary(UUID photoId, String contentHash, String deviceModel, LocalDateTime createdAt) {
+        this.photoId = photoId;
+        this.contentHash = contentHash;
+        this.deviceModel = deviceModel;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getPhotoId() { return photoId; }
+    public String getContentHash() { return contentHash; }
+    public String getDeviceModel() { return deviceModel; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
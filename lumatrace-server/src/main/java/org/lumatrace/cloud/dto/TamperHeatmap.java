@@ -0,0 +1,33 @@
+package org.lumatrace.cloud.dto;
+
+import org.lumatrace.core.TamperMap;
+
+/**
+ * Mapa de sigma por ventana para localizar manipulaciones ({@code sigmas[fila][columna]}).
+ * La ventana (fila, columna) empieza en (columna * stride, fila * stride) píxeles.
+ */
+public class TamperHeatmap {
+
+    private int window;
+    private int stride;
+    private double[][] sigmas;
+
+    public TamperHeatmap(int window, int stride, double[][] sigmas) {
+        this.window = window;
+        this.stride = stride;
+        this.sigmas = sigmas;
+    }
+
+    public static TamperHeatmap of(TamperMap map) {
+        double[][] rows = new double[map.rows()][];
+        for (int r = 0; r < map.rows(); r++) {
+            rows[r] = new double[map.columns()];
+            for (int c = 0; c < map.columns(); c++) rows[r][c] = map.sigma(c, r);
+        }
+        return new TamperHeatmap(map.window(), map.stride(), rows);
+    }
+
+    public int getWindow() { return window; }
+    public int getStride() { return stride; }
+    public double[][] getSigmas() { return sigmas; }
+}
@@ -1,18 +1,29 @@
 package org.lumatrace.cloud.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class VerificationResponse {
 
     private boolean authentic;
     private double confidenceScore;
     private String message;
+    // Solo con ?heatmap=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private TamperHeatmap heatmap;
 
     public VerificationResponse(boolean authentic, double confidenceScore, String message) {
+        this(authentic, confidenceScore, message, null);
+    }
+
+    public VerificationResponse(boolean authentic, double confidenceScore, String message, TamperHeatmap heatmap) {
         this.authentic = authentic;
         this.confidenceScore = confidenceScore;
         this.message = message;
+        this.heatmap = heatmap;
     }
 
     public boolean isAuthentic() { return authentic; }
     public double getConfidenceScore() { return confidenceScore; }
     public String getMessage() { return message; }
+    public TamperHeatmap getHeatmap() { return heatmap; }
 }
\ No newline at end of file
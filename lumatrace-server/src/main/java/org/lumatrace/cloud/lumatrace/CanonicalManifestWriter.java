@@ -0,0 +1,193 @@
+package org.lumatrace.cloud.lumatrace;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Escritor canónico dedicado para {@link LumaTraceManifest}.
+ * Campos en orden alfabético fijo, mismas reglas que el ObjectMapper original
+ * (SORT_PROPERTIES_ALPHABETICALLY, fechas ISO, nulls incluidos, escapes estándar de Jackson),
+ * de modo que la salida es byte a byte idéntica. Sin reflexión, sin String intermedio para el
+ * hash: el JSON se codifica a UTF-8 y se vuelca directamente al digest.
+ * Un escritor por llamada: con hilos virtuales cada petición tiene su propio hilo, así que un
+ * ThreadLocal nunca se reutilizaría. Los buffers son de pocos cientos de bytes y el digest se
+ * clona de un prototipo en lugar de buscar el proveedor cada vez.
+ */
+final class CanonicalManifestWriter {
+
+    private static final char[] HEX_LOWER = "0123456789abcdef".toCharArray();
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+
+    private static final MessageDigest PROTOTYPE = newDigest();
+
+    private final StringBuilder json = new StringBuilder(384);
+
+    CanonicalManifestWriter() {}
+
+    String toJson(LumaTraceManifest manifest) {
+        write(manifest);
+        return json.toString();
+    }
+
+    String sha256(LumaTraceManifest manifest) {
+        write(manifest);
+        return digestJson();
+    }
+
+    String sha256(CharSequence canonicalJson) {
+        json.setLength(0);
+        json.append(canonicalJson);
+        return digestJson();
+    }
+
+    /**
+     * JSON and hash from a single serialization.
+     */
+    LumaTraceCanonicalizer.CanonicalManifest canonicalize(LumaTraceManifest manifest) {
+        write(manifest);
+        String text = json.toString();
+        return new LumaTraceCanonicalizer.CanonicalManifest(text, digestJson());
+    }
+
+    private void write(LumaTraceManifest m) {
+        StringBuilder out = json;
+        out.setLength(0);
+        out.append('{');
+        field("contentHash").string(m.contentHash());
+        out.append(',');
+        field("createdAt").dateTime(m.createdAt());
+        out.append(',');
+        field("deviceModel").string(m.deviceModel());
+        out.append(',');
+        field("latitude").number(m.latitude());
+        out.append(',');
+        field("longitude").number(m.longitude());
+        out.append(',');
+        field("photoId").string(m.photoId() == null ? null : m.photoId().toString());
+        out.append(',');
+        field("spec").string(m.spec());
+        out.append(',');
+        field("userId").string(m.userId());
+        out.append('}');
+    }
+
+    private CanonicalManifestWriter field(String name) {
+        json.append('"').append(name).append("\":");
+        return this;
+    }
+
+    private void string(String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        StringBuilder out = json;
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\b' -> out.append("\\b");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\f' -> out.append("\\f");
+                case '\r' -> out.append("\\r");
+                default -> {
+                    if (c < 0x20) {
+                        // Jackson: \\u00XX en hexadecimal mayúscula
+                        out.append("\\u00").append(HEX_UPPER[c >> 4]).append(HEX_UPPER[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    private void dateTime(LocalDateTime value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(value, json);
+        json.append('"');
+    }
+
+    private void number(Double value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value.isNaN() || value.isInfinite()) {
+            // QUOTE_NON_NUMERIC_NUMBERS (activo por defecto)
+            json.append('"').append(value.doubleValue()).append('"');
+        } else {
+            json.append(value.doubleValue());
+        }
+    }
+
+    private String digestJson() {
+        byte[] utf8 = new byte[json.length() * 3];
+        int n = encodeUtf8(utf8);
+        MessageDigest digest = digest();
+        digest.update(utf8, 0, n);
+        byte[] hash = digest.digest();
+        char[] hex = new char[2 * hash.length];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX_LOWER[(hash[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_LOWER[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return (MessageDigest) PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            return newDigest();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * Same bytes as {@code String.getBytes(UTF_8)}, including '?' for unpaired surrogates.
+     * {@code out} holds at least three bytes per char.
+     */
+    private int encodeUtf8(byte[] out) {
+        StringBuilder in = json;
+        int length = in.length();
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = in.charAt(i);
+            if (c < 0x80) {
+                out[n++] = (byte) c;
+            } else if (c < 0x800) {
+                out[n++] = (byte) (0xC0 | (c >> 6));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(in.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, in.charAt(++i));
+                out[n++] = (byte) (0xF0 | (cp >> 18));
+                out[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[n++] = '?';
+            } else {
+                out[n++] = (byte) (0xE0 | (c >> 12));
+                out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return n;
+    }
+}
@@ -1,46 +1,38 @@
 package org.lumatrace.cloud.lumatrace;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.MapperFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-
 /**
  * Provides deterministic JSON serialization for manifest integrity.
+ * Output is byte-identical to the former Jackson mapper (alphabetical properties, ISO dates,
+ * nulls included); see {@link CanonicalManifestWriter}.
  */
 public final class LumaTraceCanonicalizer {
 
-    private static final ObjectMapper MAPPER = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    /**
+     * Canonical JSON of a manifest and its lowercase hex SHA-256.
+     */
+    public record CanonicalManifest(String json, String sha256) {}
 
     private LumaTraceCanonicalizer() {}
 
     public static String toCanonicalJson(LumaTraceManifest manifest) {
-        try {
-            return MAPPER.writeValueAsString(manifest);
-        } catch (Exception e) {
-            throw new IllegalStateException("Canonical serialization failed", e);
-        }
+        return new CanonicalManifestWriter().toJson(manifest);
     }
 
     public static String sha256(String canonicalJson) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(canonicalJson.getBytes(StandardCharsets.UTF_8));
+        return new CanonicalManifestWriter().sha256(canonicalJson);
+    }
 
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hash) {
-                sb.append("%02x".formatted(b));
-            }
-            return sb.toString();
+    /**
+     * Hashes the canonical form of {@code manifest} without materializing the JSON string.
+     */
+    public static String sha256(LumaTraceManifest manifest) {
+        return new CanonicalManifestWriter().sha256(manifest);
+    }
 
-        } catch (Exception e) {
-            throw new IllegalStateException("Hashing failed", e);
-        }
+    /**
+     * Serializes once and hashes the same bytes: what /register needs.
+     */
+    public static CanonicalManifest canonicalize(LumaTraceManifest manifest) {
+        return new CanonicalManifestWriter().canonicalize(manifest);
     }
 }
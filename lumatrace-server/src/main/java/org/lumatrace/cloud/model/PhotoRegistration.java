@@ -6,7 +6,16 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "photo_registrations")
+@Table(name = "photo_registrations", indexes = {
+        // Listado por usuario con paginación por clave (userId, id) e identificación por usuario
+        @Index(name = "idx_photo_registrations_user_id", columnList = "userId, id"),
+        // De-duplicación y búsqueda por contenido
+        @Index(name = "idx_photo_registrations_content_hash", columnList = "contentHash, userId")
+}, uniqueConstraints = {
+        // Registro idempotente: un solo (userId, hash) aunque dos peticiones compitan. Los NULL no chocan,
+        // así que el modo normal sigue admitiendo duplicados
+        @UniqueConstraint(name = "uk_photo_registrations_idempotent", columnNames = {"userId", "idempotentHash"})
+})
 public class PhotoRegistration {
 
     @Id
@@ -23,6 +32,10 @@ public class PhotoRegistration {
     private Double latitude;
     private Double longitude;
 
+    // contentHash si se registró en modo idempotente; null en otro caso
+    @Column(updatable = false)
+    private String idempotentHash;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -37,6 +50,15 @@ public class PhotoRegistration {
         this.longitude = longitude;
     }
 
+    /**
+     * Claims {@code (userId, contentHash)} for idempotent registration: a concurrent insert of the
+     * same pair fails on {@code uk_photo_registrations_idempotent}.
+     */
+    public PhotoRegistration idempotent() {
+        this.idempotentHash = contentHash;
+        return this;
+    }
+
     public UUID getId() { return id; }
     public String getUserId() { return userId; }
     public String getContentHash() { return contentHash; }
@@ -1,9 +1,31 @@
 package org.lumatrace.cloud.repository;
 
 import org.lumatrace.cloud.model.PhotoRegistration;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface PhotoRepository extends JpaRepository<PhotoRegistration, UUID> {
+
+    // Solo los IDs: identificar no necesita hidratar las entidades completas
+    @Query("select p.id from PhotoRegistration p where p.userId = :userId")
+    List<UUID> findIdsByUserId(@Param("userId") String userId);
+
+    // Índice (contentHash, userId)
+    List<PhotoRegistration> findByContentHash(String contentHash);
+
+    Optional<PhotoRegistration> findFirstByUserIdAndContentHashOrderByCreatedAtAsc(String userId, String contentHash);
+
+    List<PhotoRegistration> findByContentHashIn(Collection<String> contentHashes);
+
+    // Paginación por clave sobre el índice (userId, id): coste constante sea cual sea la página
+    List<PhotoRegistration> findByUserIdOrderByIdAsc(String userId, Limit limit);
+
+    List<PhotoRegistration> findByUserIdAndIdGreaterThanOrderByIdAsc(String userId, UUID after, Limit limit);
 }
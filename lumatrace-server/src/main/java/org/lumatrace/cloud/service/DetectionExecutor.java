@@ -0,0 +1,159 @@
+package org.lumatrace.cloud.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado para decodificación y detección (CPU intensivo).
+ * Las peticiones llegan en hilos virtuales; el trabajo pesado se limita a un hilo por core
+ * y una cola finita. Cola llena = rechazo inmediato (429) en lugar de colapso de latencia.
+ */
+@Component
+public class DetectionExecutor implements MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration deadline;
+    private final long retryAfterSeconds;
+    private final LongAdder rejections = new LongAdder();
+
+    public DetectionExecutor(
+            @Value("${lumatrace.detection.threads:0}") int threads,
+            @Value("${lumatrace.detection.queue-capacity:-1}") int queueCapacity,
+            @Value("${lumatrace.detection.deadline:PT30S}") Duration deadline,
+            @Value("${lumatrace.detection.retry-after-seconds:2}") long retryAfterSeconds
+    ) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int capacity = queueCapacity >= 0 ? queueCapacity : 2 * poolSize;
+        BlockingQueue<Runnable> queue = capacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(capacity);
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "lumatrace-detect-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                queue, factory, new ThreadPoolExecutor.AbortPolicy());
+        this.deadline = deadline;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Runs {@code task} on the detection pool and waits up to the configured deadline,
+     * measured from submission so queue time counts against it.
+     *
+     * @throws SaturatedException if the queue is full.
+     * @throws TimeoutException if the deadline expires; the task is cancelled and, if still
+     *                          queued, never starts. A running task is interrupted: decoding
+     *                          (ImageReaderPixels) and folding poll the interrupt and stop with a
+     *                          CancellationException, so the worker is reclaimed within one band or
+     *                          decoder progress callback. Tasks that ignore interrupts keep their worker.
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new SaturatedException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            // Libera el hueco de la cola si aún no había empezado
+            executor.remove((Runnable) future);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous variant for batch callers. The returned future fails with
+     * {@link TimeoutException} once the deadline passes, and the task is then cancelled
+     * (interrupted, as in {@link #call}).
+     *
+     * @throws SaturatedException if the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new SaturatedException(retryAfterSeconds);
+        }
+
+        result.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                future.cancel(true);
+                executor.remove((Runnable) future);
+            }
+        });
+        return result;
+    }
+
+    public int poolSize() { return executor.getMaximumPoolSize(); }
+    public int queueSize() { return executor.getQueue().size(); }
+    public int activeCount() { return executor.getActiveCount(); }
+    public Duration deadline() { return deadline; }
+
+    // Profundidad de cola y ocupación del pool: saturación visible antes de que aparezcan los 429
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("lumatrace.detection.queue.size", this, DetectionExecutor::queueSize)
+                .description("Detection tasks waiting for a worker")
+                .register(registry);
+        Gauge.builder("lumatrace.detection.active", this, DetectionExecutor::activeCount)
+                .description("Detection workers busy")
+                .register(registry);
+        Gauge.builder("lumatrace.detection.pool.size", this, DetectionExecutor::poolSize)
+                .register(registry);
+        FunctionCounter.builder("lumatrace.detection.rejected", rejections, LongAdder::sum)
+                .description("Submissions rejected because the queue was full")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Signals that the detection queue is full; callers should answer 429 with Retry-After.
+     */
+    public static class SaturatedException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public SaturatedException(long retryAfterSeconds) {
+            super("Detection queue is full");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+}
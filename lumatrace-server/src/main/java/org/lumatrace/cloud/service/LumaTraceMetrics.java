@@ -0,0 +1,82 @@
+package org.lumatrace.cloud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.lumatrace.core.DetectionReport;
+import org.lumatrace.core.DetectionTimings;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers del servidor (expuestos en /actuator/metrics):
+ *  - lumatrace.decode / lumatrace.detect: lectura de píxeles (códec) vs. cómputo, por operación.
+ *  - lumatrace.detect.total: códec + cómputo sin desglose (identify, identify-blind, localize);
+ *    la decodificación es perezosa y no se puede separar, así que no se mezcla con lumatrace.detect.
+ *  - lumatrace.detect.stage: desglose firma / plegado / FFT / correlación.
+ *  - lumatrace.detect.coverage: fracción de filas de la imagen leídas (detección progresiva).
+ *  - lumatrace.persistence y lumatrace.canonicalization: base de datos y manifiesto.
+ * Con percentiles e histograma para distinguir regresiones de códec, matemáticas o BD.
+ */
+@Component
+public class LumaTraceMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter earlyExits;
+    private final DistributionSummary coverage;
+
+    public LumaTraceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.earlyExits = Counter.builder("lumatrace.detect.early.exit")
+                .description("Detections that skipped remaining scales on a strong native-scale match")
+                .register(registry);
+        this.coverage = DistributionSummary.builder("lumatrace.detect.coverage")
+                .description("Fraction of image rows read per detection")
+                .publishPercentiles(0.5, 0.95)
+                .register(registry);
+    }
+
+    /**
+     * Records the stage breakdown of an instrumented detection.
+     */
+    public void recordDetection(String operation, DetectionReport report) {
+        DetectionTimings t = report.timings();
+        if (t == null || t == DetectionTimings.NONE) return;
+        timer("lumatrace.decode", "operation", operation).record(t.readNanos(), TimeUnit.NANOSECONDS);
+        timer("lumatrace.detect", "operation", operation).record(t.totalNanos() - t.readNanos(), TimeUnit.NANOSECONDS);
+        timer("lumatrace.detect.stage", "stage", "signature").record(t.signatureNanos(), TimeUnit.NANOSECONDS);
+        timer("lumatrace.detect.stage", "stage", "fold").record(t.foldNanos(), TimeUnit.NANOSECONDS);
+        timer("lumatrace.detect.stage", "stage", "fft").record(t.transformNanos(), TimeUnit.NANOSECONDS);
+        timer("lumatrace.detect.stage", "stage", "correlation").record(t.correlationNanos(), TimeUnit.NANOSECONDS);
+        if (t.earlyExit()) earlyExits.increment();
+        coverage.record(t.coverage());
+    }
+
+    /**
+     * Records an uninstrumented detection (decode + compute as a whole), e.g. identification.
+     * Kept apart from {@code lumatrace.detect}, which excludes decoding.
+     */
+    public void recordTotal(String operation, long nanos) {
+        timer("lumatrace.detect.total", "operation", operation).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T persistence(String operation, Supplier<T> call) {
+        return timer("lumatrace.persistence", "operation", operation).record(call);
+    }
+
+    public <T> T canonicalization(Supplier<T> call) {
+        return timer("lumatrace.canonicalization", "operation", "manifest").record(call);
+    }
+
+    // El registro devuelve el mismo Timer para el mismo nombre y tags
+    private Timer timer(String name, String tagKey, String tagValue) {
+        return Timer.builder(name)
+                .tag(tagKey, tagValue)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,96 @@
+package org.lumatrace.cloud.service;
+
+import jakarta.annotation.PreDestroy;
+import org.lumatrace.awt.ImageReaderPixels;
+import org.lumatrace.core.DetectionReport;
+import org.lumatrace.core.ProgressiveSampling;
+import org.lumatrace.core.ScaleSearch;
+import org.lumatrace.core.SignatureCache;
+import org.lumatrace.core.TamperGrid;
+import org.lumatrace.core.TamperMap;
+import org.lumatrace.core.WatermarkDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Decodificación + detección de una imagen, compartida por /verify y /verify/batch.
+ * Pensado para ejecutarse dentro de {@link DetectionExecutor}.
+ */
+@Service
+public class PhotoVerifier {
+
+    /**
+     * Detección global y, si se pidió, mapa de manipulación ({@code null} en caso contrario).
+     */
+    public record Verification(DetectionReport report, TamperMap tamperMap) {}
+
+    private final long masterKey;
+    private final LumaTraceMetrics metrics;
+    private final WatermarkDetector detector;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param scaleSearch {@code adaptive}: búsqueda continua de escala 0.3x-2x; {@code fixed}: sondas 1.0/0.75/0.5/1.25.
+     * @param progressive Pliega cada escala por muestras crecientes y decide en cuanto el veredicto es claro.
+     *                    Al aceptar antes, confidenceScore es una cota inferior de la puntuación completa.
+     * @param parallelism Hilos por petición (bandas de filas y escalas en paralelo); 0 = detección secuencial.
+     *                    Útil con poca concurrencia: con el pool de detección lleno solo añade contención.
+     */
+    public PhotoVerifier(@Value("${lumatrace.master-key}") long masterKey,
+                         @Value("${lumatrace.detection.scale-search:fixed}") String scaleSearch,
+                         @Value("${lumatrace.detection.progressive:false}") boolean progressive,
+                         @Value("${lumatrace.detection.parallelism:0}") int parallelism,
+                         LumaTraceMetrics metrics) {
+        this.masterKey = masterKey;
+        this.metrics = metrics;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.detector = new WatermarkDetector(SignatureCache.shared(),
+                "adaptive".equalsIgnoreCase(scaleSearch) ? ScaleSearch.DEFAULT : null,
+                progressive ? ProgressiveSampling.DEFAULT : null,
+                pool);
+    }
+
+    /**
+     * @return The detection report, or {@code null} if the stream is not a readable image.
+     */
+    public DetectionReport verify(InputStream image, String userId, String photoId) throws IOException {
+        Verification verification = verify(image, userId, photoId, null);
+        return verification == null ? null : verification.report();
+    }
+
+    /**
+     * @param grid Rejilla del mapa de manipulación sobre la misma decodificación, o {@code null} para omitirlo.
+     * @return The verification, or {@code null} if the stream is not a readable image.
+     */
+    public Verification verify(InputStream image, String userId, String photoId, TamperGrid grid) throws IOException {
+        // Decodificación en bandas directamente hacia el detector: sin copia int[] completa
+        try (ImageReaderPixels source = ImageReaderPixels.open(ImageIO.createImageInputStream(image))) {
+            if (source == null) {
+                return null;
+            }
+            DetectionReport report = detector.detect(source, masterKey, userId, photoId);
+            metrics.recordDetection("verify", report);
+
+            TamperMap map = null;
+            if (grid != null) {
+                long t0 = System.nanoTime();
+                map = detector.localize(source, masterKey, userId, photoId, grid);
+                metrics.recordTotal("localize", System.nanoTime() - t0);
+            }
+            return new Verification(report, map);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+}
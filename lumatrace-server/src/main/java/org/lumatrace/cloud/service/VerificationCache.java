@@ -0,0 +1,152 @@
+package org.lumatrace.cloud.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.lumatrace.core.DetectionReport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de resultados de verificación direccionada por contenido.
+ * Clave = (SHA-256 de los bytes subidos, userId, photoId): un reenvío idéntico
+ * (reintentos, CDN, moderación duplicada) no vuelve a decodificar ni a detectar.
+ * LRU acotada por tamaño y con TTL; {@code max-entries=0} la desactiva.
+ */
+@Component
+public class VerificationCache implements MeterBinder {
+
+    public record Key(String sha256, String userId, String photoId) {}
+
+    private record Entry(DetectionReport report, long expiresAt) {}
+
+    private static final int HASH_BUFFER = 64 * 1024;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerificationCache(
+            @Value("${lumatrace.verify-cache.max-entries:10000}") int maxEntries,
+            @Value("${lumatrace.verify-cache.ttl:PT1H}") Duration ttl
+    ) {
+        this.maxEntries = Math.max(maxEntries, 0);
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > VerificationCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && ttlNanos > 0;
+    }
+
+    /**
+     * Hashes {@code image} in a single streaming pass (nothing is buffered).
+     *
+     * @return The cache key, or {@code null} when the cache is disabled.
+     */
+    public Key keyOf(InputStream image, String userId, String photoId) throws IOException {
+        if (!isEnabled()) return null;
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[HASH_BUFFER];
+        for (int n; (n = image.read(buffer)) > 0; ) {
+            digest.update(buffer, 0, n);
+        }
+        return new Key(HexFormat.of().formatHex(digest.digest()), userId, photoId);
+    }
+
+    /**
+     * @return The cached report, or {@code null} on a miss or expired entry.
+     */
+    public DetectionReport get(Key key) {
+        if (key == null) return null;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.report;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(Key key, DetectionReport report) {
+        if (key == null || report == null) return;
+        synchronized (entries) {
+            entries.put(key, new Entry(report, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() { return hits.sum(); }
+    public long missCount() { return misses.sum(); }
+    public long evictionCount() { return evictions.sum(); }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    // Mismas convenciones que los CacheMeterBinder de Micrometer (cache.gets / cache.size / cache.evictions)
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", "verification").tag("result", "hit")
+                .description("Verification requests answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", "verification").tag("result", "miss")
+                .description("Verification requests that required detection")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", "verification")
+                .description("Entries dropped by size or TTL")
+                .register(registry);
+        Gauge.builder("cache.size", this, VerificationCache::size)
+                .tag("cache", "verification")
+                .register(registry);
+        Gauge.builder("lumatrace.verify.cache.hit.ratio", this, VerificationCache::hitRate)
+                .register(registry);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
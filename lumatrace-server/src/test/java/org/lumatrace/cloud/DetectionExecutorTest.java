@@ -0,0 +1,66 @@
+package org.lumatrace.cloud;
+
+import org.junit.jupiter.api.Test;
+import org.lumatrace.cloud.service.DetectionExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetectionExecutorTest {
+
+    @Test
+    void testRejectsWhenSaturatedAndEnforcesDeadline() throws Exception {
+        System.out.println("🌐 TEST: Testing bounded detection pool back-pressure...");
+
+        DetectionExecutor executor = new DetectionExecutor(1, 1, Duration.ofMillis(200), 3);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            // 1. Ocupar el único hilo (ignorando la cancelación) y el único hueco de la cola
+            Callable<Object> busy = () -> {
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                        // Tarea que ignora la cancelación: el hilo sigue ocupado hasta que termine
+                    }
+                }
+                return null;
+            };
+            Future<Object> running = callers.submit(() -> executor.call(busy));
+            waitFor(() -> executor.activeCount() == 1);
+            Future<Object> queued = callers.submit(() -> executor.call(() -> "late"));
+            waitFor(() -> executor.queueSize() == 1);
+
+            // 2. Tercera petición: rechazo inmediato con Retry-After
+            DetectionExecutor.SaturatedException rejected = assertThrows(DetectionExecutor.SaturatedException.class,
+                    () -> executor.call(() -> "rejected"));
+            assertEquals(3, rejected.getRetryAfterSeconds());
+
+            // 3. Las peticiones en espera vencen su deadline y liberan la cola
+            ExecutionException timeout = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, timeout.getCause());
+            assertEquals(0, executor.queueSize(), "Expired task must leave the queue");
+
+            release.countDown();
+            assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", executor.call(() -> "ok"));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            executor.shutdown();
+        }
+
+        System.out.println("✅ TEST PASSED: Saturation yields 429 semantics and deadlines are enforced.");
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > until) fail("Condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.lumatrace.cloud;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.lumatrace.cloud.lumatrace.LumaTraceCanonicalizer;
+import org.lumatrace.cloud.lumatrace.LumaTraceManifest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LumaTraceCanonicalizerTest {
+
+    // Configuración del canonicalizador original basado en Jackson
+    private static final ObjectMapper REFERENCE = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void testCanonicalWriterMatchesJacksonByteForByte() throws Exception {
+        System.out.println("🌐 TEST: Comparing canonical writer against the Jackson reference...");
+
+        List<LumaTraceManifest> manifests = new ArrayList<>();
+        manifests.add(new LumaTraceManifest("lumatrace/1.0", UUID.randomUUID(), "user", "hash", "Pixel 8 Pro",
+                LocalDateTime.of(2026, 1, 15, 10, 30, 45, 123_456_000), 40.4168, -3.7038));
+        // Nulls, segundos a cero, NaN/Infinity, exponentes
+        manifests.add(new LumaTraceManifest("lumatrace/1.0", UUID.randomUUID(), "user", null, null,
+                LocalDateTime.of(2026, 1, 1, 0, 0), null, Double.NaN));
+        manifests.add(new LumaTraceManifest("lumatrace/1.0", null, "user", "h", "d",
+                LocalDateTime.of(2026, 6, 30, 23, 59, 59, 1), 1e-7, Double.NEGATIVE_INFINITY));
+        manifests.add(new LumaTraceManifest("lumatrace/1.0", UUID.randomUUID(), "u\"\\/\b\f\n\r\t\u0000\u001f\u007f",
+                "é ñ 漢字 😀 \ud800 lone", "dev", null, 1e21, 0.0));
+
+        Random rand = new Random(17);
+        for (int i = 0; i < 500; i++) {
+            manifests.add(new LumaTraceManifest("lumatrace/1.0", new UUID(rand.nextLong(), rand.nextLong()),
+                    randomText(rand), randomText(rand), randomText(rand),
+                    LocalDateTime.of(2000 + rand.nextInt(100), 1 + rand.nextInt(12), 1 + rand.nextInt(28),
+                            rand.nextInt(24), rand.nextInt(60), rand.nextInt(60), rand.nextInt(1_000_000_000)),
+                    rand.nextBoolean() ? null : (rand.nextDouble() - 0.5) * 180,
+                    rand.nextBoolean() ? null : Double.longBitsToDouble(rand.nextLong())));
+        }
+
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        for (LumaTraceManifest manifest : manifests) {
+            String expected = REFERENCE.writeValueAsString(manifest);
+            String expectedHash = HexFormat.of().formatHex(sha.digest(expected.getBytes(StandardCharsets.UTF_8)));
+
+            assertEquals(expected, LumaTraceCanonicalizer.toCanonicalJson(manifest));
+            assertEquals(expectedHash, LumaTraceCanonicalizer.sha256(expected));
+            assertEquals(expectedHash, LumaTraceCanonicalizer.sha256(manifest));
+
+            LumaTraceCanonicalizer.CanonicalManifest canonical = LumaTraceCanonicalizer.canonicalize(manifest);
+            assertEquals(expected, canonical.json());
+            assertEquals(expectedHash, canonical.sha256());
+        }
+
+        System.out.println("✅ TEST PASSED: " + manifests.size() + " manifests serialize and hash identically.");
+    }
+
+    private static String randomText(Random rand) {
+        if (rand.nextInt(10) == 0) return null;
+        StringBuilder sb = new StringBuilder();
+        int length = rand.nextInt(40);
+        for (int i = 0; i < length; i++) {
+            switch (rand.nextInt(4)) {
+                case 0 -> sb.append((char) rand.nextInt(0x80));
+                case 1 -> sb.append((char) (0x20 + rand.nextInt(0x5F)));
+                case 2 -> sb.append((char) rand.nextInt(0x10000));
+                default -> sb.appendCodePoint(0x10000 + rand.nextInt(0x100000));
+            }
+        }
+        return sb.toString();
+    }
+}
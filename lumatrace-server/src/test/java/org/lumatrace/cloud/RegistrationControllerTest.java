@@ -1,22 +1,61 @@
 package org.lumatrace.cloud;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.lumatrace.cloud.dto.PhotoRegistrationBatchRequest;
 import org.lumatrace.cloud.dto.PhotoRegistrationRequest;
+import org.lumatrace.cloud.model.PhotoRegistration;
+import org.lumatrace.cloud.repository.PhotoRepository;
+import org.lumatrace.cloud.service.VerificationCache;
+import org.lumatrace.core.WatermarkEngine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 // Importaciones estáticas para MockMvc
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -28,6 +67,18 @@ class RegistrationControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PhotoRepository repository;
+
+    @Autowired
+    private VerificationCache verificationCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lumatrace.master-key}")
+    private long masterKey;
+
     @Test
     void testFullRegistrationFlow() throws Exception {
         System.out.println("🌐 TEST: Testing API /register endpoint...");
@@ -53,6 +104,136 @@ class RegistrationControllerTest {
         System.out.println("✅ TEST PASSED: Registration API works.");
     }
 
+    @Test
+    void testBatchRegistrationPreservesRequestOrder() throws Exception {
+        System.out.println("🌐 TEST: Testing API /register/batch endpoint...");
+
+        List<PhotoRegistrationRequest> items = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            items.add(new PhotoRegistrationRequest("fleet-user", "fleet-hash-" + i, "Fleet-Cam", 40.0, -3.0));
+        }
+        long before = repository.count();
+
+        MvcResult result = mockMvc.perform(post("/api/v1/photos/register/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PhotoRegistrationBatchRequest(items))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.registered", is(25)))
+                .andReturn();
+
+        // Un certificado por registro, en el orden de la petición
+        JsonNode certificates = objectMapper.readTree(result.getResponse().getContentAsString()).get("registrations");
+        for (int i = 0; i < 25; i++) {
+            JsonNode certificate = certificates.get(i);
+            assertTrue(certificate.get("canonicalJson").asText().contains("\"fleet-hash-" + i + "\""));
+            assertTrue(repository.existsById(UUID.fromString(certificate.get("photoId").asText())));
+        }
+        assertEquals(before + 25, repository.count());
+
+        System.out.println("✅ TEST PASSED: Batch registration persists all items in order.");
+    }
+
+    @Test
+    void testIdempotentRegistrationAndKeysetListing() throws Exception {
+        System.out.println("🌐 TEST: Testing idempotent /register and keyset listing...");
+
+        String userId = "dedupe-user";
+        String body = objectMapper.writeValueAsString(new PhotoRegistrationRequest(userId, "dup-hash", "Test-Device", 1.0, 2.0));
+
+        // 1. Dos registros idénticos: el segundo devuelve el original
+        JsonNode first = objectMapper.readTree(mockMvc.perform(post("/api/v1/photos/register")
+                        .param("idempotent", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duplicate", is(false)))
+                .andReturn().getResponse().getContentAsString());
+        JsonNode second = objectMapper.readTree(mockMvc.perform(post("/api/v1/photos/register")
+                        .param("idempotent", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duplicate", is(true)))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(first.get("photoId"), second.get("photoId"));
+        assertEquals(first.get("watermarkSeed"), second.get("watermarkSeed"));
+        assertEquals(first.get("canonicalHash"), second.get("canonicalHash"));
+
+        for (int i = 0; i < 6; i++) {
+            repository.save(new PhotoRegistration(userId, "page-hash-" + i, "Test-Device", null, null));
+        }
+
+        // 2. Recorrido completo por cursor, páginas de 3
+        List<String> seen = new ArrayList<>();
+        String after = null;
+        do {
+            MockHttpServletRequestBuilder requestBuilder = get("/api/v1/photos")
+                    .param("userId", userId)
+                    .param("limit", "3");
+            if (after != null) requestBuilder.param("after", after);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(requestBuilder)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            for (JsonNode item : page.get("registrations")) seen.add(item.get("photoId").asText());
+            after = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (after != null);
+
+        assertEquals(7, seen.size());
+        assertEquals(7, new HashSet<>(seen).size());
+        assertTrue(seen.contains(first.get("photoId").asText()));
+
+        System.out.println("✅ TEST PASSED: Duplicates resolve to the original and listing pages by cursor.");
+    }
+
+    @Test
+    void testConcurrentIdempotentRegistrationsKeepOneRow() throws Exception {
+        System.out.println("🌐 TEST: Testing concurrent idempotent /register of the same content...");
+
+        String userId = "retry-user";
+        String body = objectMapper.writeValueAsString(new PhotoRegistrationRequest(userId, "retry-hash", "Test-Device", 1.0, 2.0));
+
+        // 1. Reintentos que compiten con el original: todos resuelven al mismo registro
+        int clients = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<String>> photoIds = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                photoIds.add(pool.submit(() -> {
+                    start.await();
+                    String response = mockMvc.perform(post("/api/v1/photos/register")
+                                    .param("idempotent", "true")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andExpect(status().isOk())
+                            .andReturn().getResponse().getContentAsString();
+                    return objectMapper.readTree(response).get("photoId").asText();
+                }));
+            }
+            start.countDown();
+            Set<String> distinct = new HashSet<>();
+            for (Future<String> photoId : photoIds) distinct.add(photoId.get(30, TimeUnit.SECONDS));
+            assertEquals(1, distinct.size());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, repository.findByContentHash("retry-hash").size());
+
+        // 2. La restricción única respalda la comprobación previa
+        assertThrows(DataIntegrityViolationException.class, () ->
+                repository.save(new PhotoRegistration(userId, "retry-hash", "Test-Device", null, null).idempotent()));
+
+        // 3. El modo normal sigue admitiendo duplicados
+        mockMvc.perform(post("/api/v1/photos/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duplicate", is(false)));
+        assertEquals(2, repository.findByContentHash("retry-hash").size());
+
+        System.out.println("✅ TEST PASSED: Racing idempotent registrations leave a single row.");
+    }
+
     @Test
     void testVerificationWithInvalidImage() throws Exception {
         System.out.println("🌐 TEST: Testing API /verify with fake image...");
@@ -74,4 +255,164 @@ class RegistrationControllerTest {
 
         System.out.println("✅ TEST PASSED: Verify API handles bad input gracefully.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIdentifyFindsPhotoAmongUserRegistrations() throws Exception {
+        System.out.println("🌐 TEST: Testing API /identify without photoId...");
+
+        String userId = "identify-user";
+        String target = null;
+        for (int i = 0; i < 5; i++) {
+            PhotoRegistration saved = repository.save(new PhotoRegistration(userId, "hash-" + i, "Test-Device", null, null));
+            if (i == 3) target = saved.getId().toString();
+        }
+
+        // 1. Imagen marcada con la firma del registro objetivo
+        MockMultipartFile image = new MockMultipartFile("image", "marked.png", "image/png", markedPng(userId, target));
+
+        // 2. Llamar a /identify
+        mockMvc.perform(multipart("/api/v1/photos/identify")
+                        .file(image)
+                        .param("userId", userId)
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.identified", is(true)))
+                .andExpect(jsonPath("$.candidatesScanned", is(5)))
+                .andExpect(jsonPath("$.matches.length()", is(2)))
+                .andExpect(jsonPath("$.matches[0].photoId", is(target)));
+
+        // Incluye la decodificación: medidor propio, fuera de lumatrace.detect
+        assertTrue(meterRegistry.get("lumatrace.detect.total").tag("operation", "identify").timer().count() >= 1);
+        assertNull(meterRegistry.find("lumatrace.detect").tag("operation", "identify").timer());
+
+        System.out.println("✅ TEST PASSED: Identify API ranks the embedded photo first.");
+    }
+
+    @Test
+    void testBatchVerificationStreamsNdjsonFromZip() throws Exception {
+        System.out.println("🌐 TEST: Testing API /verify/batch with a streamed ZIP...");
+
+        // 1. ZIP con una imagen marcada, una corrupta y un nombre sin userId
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(zipBytes)) {
+            zip.putNextEntry(new ZipEntry("batch-user/photo-a.png"));
+            zip.write(markedPng("batch-user", "photo-a"));
+            zip.putNextEntry(new ZipEntry("batch-user/photo-b.jpg"));
+            zip.write(new byte[64]);
+            zip.putNextEntry(new ZipEntry("orphan.png"));
+            zip.write(new byte[8]);
+        }
+
+        MvcResult pending = mockMvc.perform(post("/api/v1/photos/verify/batch")
+                        .contentType("application/zip")
+                        .content(zipBytes.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        pending.getAsyncResult(30_000);
+
+        // 2. Una línea NDJSON por entrada, en orden de finalización
+        String[] lines = pending.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(3, lines.length);
+        Map<Integer, JsonNode> byIndex = new HashMap<>();
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            byIndex.put(node.get("index").asInt(), node);
+        }
+        assertTrue(byIndex.get(0).get("authentic").asBoolean());
+        assertEquals("photo-a", byIndex.get(0).get("photoId").asText());
+        assertEquals("Invalid image format", byIndex.get(1).get("message").asText());
+        assertEquals("ERROR", byIndex.get(2).get("status").asText());
+
+        System.out.println("✅ TEST PASSED: Batch API streams one result per ZIP entry.");
+    }
+
+    @Test
+    void testRepeatedVerificationIsServedFromCache() throws Exception {
+        System.out.println("🌐 TEST: Testing API /verify with an identical re-submission...");
+
+        MockMultipartFile image = new MockMultipartFile("image", "marked.png", "image/png", markedPng("cache-user", "photo-c"));
+        long hitsBefore = verificationCache.hitCount();
+
+        // 1. Primera petición: detección completa
+        mockMvc.perform(multipart("/api/v1/photos/verify")
+                        .file(image)
+                        .param("userId", "cache-user")
+                        .param("photoId", "photo-c"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authentic", is(true)))
+                .andExpect(jsonPath("$.message", not(endsWith("Cached"))));
+
+        // 2. Mismos bytes: servida desde la caché
+        mockMvc.perform(multipart("/api/v1/photos/verify")
+                        .file(image)
+                        .param("userId", "cache-user")
+                        .param("photoId", "photo-c"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authentic", is(true)))
+                .andExpect(jsonPath("$.message", endsWith("Cached")));
+        assertEquals(hitsBefore + 1, verificationCache.hitCount());
+
+        // Solo la primera petición llegó al detector: sus etapas quedan en los timers
+        assertTrue(meterRegistry.get("lumatrace.detect").tag("operation", "verify").timer().count() >= 1);
+        assertTrue(meterRegistry.get("lumatrace.decode").tag("operation", "verify").timer().count() >= 1);
+        assertEquals(0.0, meterRegistry.get("lumatrace.detection.queue.size").gauge().value());
+
+        // 3. Otro photoId con los mismos bytes no comparte entrada
+        mockMvc.perform(multipart("/api/v1/photos/verify")
+                        .file(image)
+                        .param("userId", "cache-user")
+                        .param("photoId", "photo-d"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", not(endsWith("Cached"))));
+        assertEquals(hitsBefore + 1, verificationCache.hitCount());
+
+        System.out.println("✅ TEST PASSED: Identical re-submissions skip detection.");
+    }
+
+    @Test
+    void testVerificationIncludesTamperHeatmapOnRequest() throws Exception {
+        System.out.println("🌐 TEST: Testing API /verify with heatmap=true...");
+
+        MockMultipartFile image = new MockMultipartFile("image", "marked.png", "image/png", markedPng("heatmap-user", "photo-h"));
+
+        // 1. Sin heatmap el campo no aparece
+        mockMvc.perform(multipart("/api/v1/photos/verify")
+                        .file(image)
+                        .param("userId", "heatmap-user")
+                        .param("photoId", "photo-h"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.heatmap").doesNotExist());
+
+        // 2. Mismos bytes con heatmap: no se sirve de la caché; 640x480 = 3 filas x 4 columnas de ventanas
+        mockMvc.perform(multipart("/api/v1/photos/verify")
+                        .file(image)
+                        .param("userId", "heatmap-user")
+                        .param("photoId", "photo-h")
+                        .param("heatmap", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authentic", is(true)))
+                .andExpect(jsonPath("$.message", not(endsWith("Cached"))))
+                .andExpect(jsonPath("$.heatmap.window", is(256)))
+                .andExpect(jsonPath("$.heatmap.stride", is(128)))
+                .andExpect(jsonPath("$.heatmap.sigmas.length()", is(3)))
+                .andExpect(jsonPath("$.heatmap.sigmas[0].length()", is(4)));
+        assertTrue(meterRegistry.get("lumatrace.detect.total").tag("operation", "localize").timer().count() >= 1);
+
+        System.out.println("✅ TEST PASSED: Verify API returns the per-window sigma map.");
+    }
+
+    private byte[] markedPng(String userId, String photoId) throws Exception {
+        // 640x480: con 320x240 de ruido uniforme un candidato ajeno supera ocasionalmente al embebido
+        int width = 640, height = 480;
+        int[] pixels = new int[width * height];
+        Random rand = new Random(11);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = rand.nextInt(0xFFFFFF);
+        int[] marked = new WatermarkEngine().embedWatermark(pixels, width, height, masterKey, userId, photoId);
+
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, width, height, marked, 0, width);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", png);
+        return png.toByteArray();
+    }
+}